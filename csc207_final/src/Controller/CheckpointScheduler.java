@@ -0,0 +1,110 @@
+package Controller;
+
+import Gateway.JournalReadWriteGateway;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Saves the managers of the conference system in the background while the program is being used, so that a crash
+ * only loses the changes made since the last checkpoint.
+ *
+ * The program calls actionPerformed after every menu action. Once enough actions have been performed or enough
+ * time has passed since the last checkpoint, the managers are copied on the calling thread and the copies are
+ * written to their files on a background thread, so the calling thread never waits for the disk.
+ */
+public class CheckpointScheduler {
+    private final JournalReadWriteGateway readWriteGateway;
+    private final long intervalMillis;
+    private final int maxActions;
+
+    // Single background thread, so that checkpoints of the same file are written in order.
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Future<?> pendingCheckpoint; // The last checkpoint handed to the writer, or null
+    private long lastCheckpointMillis;
+    private int actionsSinceCheckpoint;
+
+    /**
+     * Creates a CheckpointScheduler.
+     *
+     * @param readWriteGateway - The gateway used to copy the managers and write them to their files.
+     * @param intervalMillis - The time in milliseconds after which the next action makes a checkpoint.
+     * @param maxActions - The number of actions after which a checkpoint is made.
+     */
+    public CheckpointScheduler(JournalReadWriteGateway readWriteGateway, long intervalMillis, int maxActions) {
+        this.readWriteGateway = readWriteGateway;
+        this.intervalMillis = intervalMillis;
+        this.maxActions = maxActions;
+        this.lastCheckpointMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Records that a menu action was performed, and makes a checkpoint if one is due.
+     * If the previous checkpoint is still being written, the next one waits for a later action.
+     *
+     * @param managers - A map from file paths to the managers saved in them.
+     */
+    public void actionPerformed(Map<String, Object> managers) {
+        actionsSinceCheckpoint++;
+        boolean due = actionsSinceCheckpoint >= maxActions ||
+                System.currentTimeMillis() - lastCheckpointMillis >= intervalMillis;
+        if (due && (pendingCheckpoint == null || pendingCheckpoint.isDone()))
+            checkpoint(managers);
+    }
+
+    /**
+     * Copies the managers and hands the copies to the background thread to be written to their files.
+     * A manager that cannot be copied is left to the next checkpoint.
+     *
+     * @param managers - A map from file paths to the managers saved in them.
+     */
+    public void checkpoint(Map<String, Object> managers) {
+        ArrayList<JournalReadWriteGateway.Checkpoint> checkpoints = new ArrayList<>();
+        for (Map.Entry<String, Object> manager : managers.entrySet()) {
+            try {
+                checkpoints.add(readWriteGateway.prepareCheckpoint(manager.getKey(), manager.getValue()));
+            } catch (IOException e) {
+                // Saved by the next checkpoint or when logging out.
+            }
+        }
+
+        pendingCheckpoint = writer.submit(() -> {
+            for (JournalReadWriteGateway.Checkpoint checkpoint : checkpoints) {
+                try {
+                    checkpoint.write();
+                } catch (IOException e) {
+                    // The gateway writes a new snapshot next time, and the data is still saved when logging out.
+                }
+            }
+        });
+        lastCheckpointMillis = System.currentTimeMillis();
+        actionsSinceCheckpoint = 0;
+    }
+
+    /**
+     * Waits until every checkpoint handed to the background thread has been written, so the files can be
+     * written directly afterwards.
+     */
+    public void awaitCheckpoints() {
+        if (pendingCheckpoint == null)
+            return;
+        try {
+            pendingCheckpoint.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Every write catches its own IOException, so this is never reached.
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package Controller;
 
-import Gateway.ReadWriteGateway;
+import Gateway.BinaryReadWriteGateway;
+import Gateway.JournalReadWriteGateway;
+import Gateway.MappedMessageContentStore;
 import Presenter.InputPresenter;
 import Presenter.ReadWritePresenter;
 import UseCase.EventManager;
@@ -9,6 +11,10 @@ import UseCase.RoomManager;
 import UseCase.UserManager;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Scanner;
 
 /**
@@ -28,8 +34,21 @@ public class ConferenceSystem {
     private UserManager userManager = new UserManager();
     private MessageManager messageManager = new MessageManager();
 
-    // Instance of ReadWriteGateway to allow for reading from and writing to files.
-    private final ReadWriteGateway readWriteGateway = new ReadWriteGateway();
+    // Instance of ReadWrite to allow for reading from and writing to files. Messages are saved as a journal of
+    // changes on top of a compact binary snapshot compressed with GZIP, so logging out only writes what changed
+    // during the session.
+    private final JournalReadWriteGateway readWriteGateway = new JournalReadWriteGateway(
+            new BinaryReadWriteGateway(true), 8L * 1024 * 1024);
+
+    // Saves the managers in the background every minute or every 20 menu actions, whichever comes first. Both can be
+    // changed with the system properties checkpoint.intervalMillis and checkpoint.actions.
+    private static final long CHECKPOINT_INTERVAL_MILLIS = Long.getLong("checkpoint.intervalMillis", 60 * 1000);
+    private static final int CHECKPOINT_ACTIONS = Integer.getInteger("checkpoint.actions", 20);
+    private final CheckpointScheduler checkpointScheduler = new CheckpointScheduler(
+            readWriteGateway, CHECKPOINT_INTERVAL_MILLIS, CHECKPOINT_ACTIONS);
+
+    // Memory-mapped store holding the contents of old messages, or null if it could not be opened.
+    private MappedMessageContentStore messageContentStore;
 
     // Instance of ReadWritePresenter to print messages related to file reading and writing.
     private final ReadWritePresenter readWritePresenter = new ReadWritePresenter();
@@ -56,6 +75,10 @@ public class ConferenceSystem {
     private final String messagesPath = "C:\\Users\\tuu18\\IdeaProjects\\group_0210\\phase2\\src\\messages.ser";
     private final String roomsPath = "C:\\Users\\tuu18\\IdeaProjects\\group_0210\\phase2\\src\\rooms.ser";
 
+    // Paths of the files that have not been read in yet.
+    private final ArrayList<String> unreadPaths = new ArrayList<>(
+            Arrays.asList(usersPath, eventsPath, messagesPath, roomsPath));
+
     // Variable for keeping track with user, should be initialized after login.
     String username;
 
@@ -72,6 +95,8 @@ public class ConferenceSystem {
             readWritePresenter.printReadSuccess();
         else
             readExceptionChooseOption();
+        openMessageContentStore();
+        shareUsernames();
 
         // After reading in Use Cases from file, instantiate controllers that do not require
         // the username of the logged in person to be instantiated.
@@ -83,6 +108,7 @@ public class ConferenceSystem {
 
         //Menu for sign in or register
         initialLoginMenu();
+        username = userManager.internUsername(username);
         signUpController.callRemovePastEvents();
         messageManager.setSenderID(username);
 
@@ -116,32 +142,107 @@ public class ConferenceSystem {
     }
 
     /**
-     * Reads in all user, event, and message data from the files.
+     * Reads in all user, event, message, and room data that has not been read yet from the files.
+     * The files are read at the same time, and each file that is read successfully is not read again.
      *
-     * @return True if file was read from successful, false if file could not be opened or
-     * file contents were not valid.
+     * @return True if all files have been read successfully, false if a file could not be opened or
+     * its contents were not valid.
      */
     private boolean readData() {
-        try {
-            userManager = (UserManager)readWriteGateway.readFromFile(usersPath);
-            eventManager = (EventManager)readWriteGateway.readFromFile(eventsPath);
-            messageManager = (MessageManager)readWriteGateway.readFromFile(messagesPath);
-            roomManager = (RoomManager)readWriteGateway.readFromFile(roomsPath);
+        HashMap<String, Object> read = new StartupLoader(readWriteGateway, readWritePresenter).readAll(unreadPaths);
+        for (String filepath : read.keySet()) {
+            if (setManager(filepath, read.get(filepath)))
+                unreadPaths.remove(filepath);
+        }
+        return unreadPaths.isEmpty();
+    }
 
-        } catch (IOException | ClassNotFoundException e) {
+    /**
+     * Sets the manager stored in a file to the data read in from the file.
+     *
+     * @param filepath The path of the file that was read.
+     * @param data The data read in from the file.
+     * @return True if the data was the manager stored in that file, false otherwise.
+     */
+    private boolean setManager(String filepath, Object data) {
+        if (filepath.equals(usersPath) && data instanceof UserManager)
+            userManager = (UserManager) data;
+        else if (filepath.equals(eventsPath) && data instanceof EventManager)
+            eventManager = (EventManager) data;
+        else if (filepath.equals(messagesPath) && data instanceof MessageManager)
+            messageManager = (MessageManager) data;
+        else if (filepath.equals(roomsPath) && data instanceof RoomManager)
+            roomManager = (RoomManager) data;
+        else
             return false;
-        }
         return true;
     }
 
     /**
-     * Writes all data to the respective files.
+     * Moves the contents of all messages read in to the memory-mapped message content store, so that they are
+     * only loaded when a conversation is viewed. Contents no message refers to any more, such as those of messages
+     * emptied from the Message Bin, are dropped from the store first. If the store cannot be opened, the contents
+     * stay in memory, and the contents of messages saved in the store cannot be shown.
+     */
+    private void openMessageContentStore() {
+        try {
+            messageContentStore = new MappedMessageContentStore(messagesPath + ".content");
+        } catch (IOException e) {
+            readWritePresenter.printFileReadError(messagesPath + ".content");
+            return;
+        }
+        try {
+            messageContentStore = messageContentStore.compact(messageManager.getStoredContentReferences());
+        } catch (IOException | IllegalArgumentException e) {
+            // The store was left as it was, and is compacted the next time the program starts
+        }
+        messageManager.setContentStore(messageContentStore);
+        // Nothing else is added to the store during the session, so it only has to be forced once.
+        messageContentStore.force();
+    }
+
+    /**
+     * Makes all managers share the username instances stored by the UserManager, instead of each keeping its own
+     * copies of the usernames read in from the files.
+     */
+    private void shareUsernames() {
+        userManager.internUsernames();
+        eventManager.internUsernames(userManager::internUsername);
+        messageManager.internUsernames(userManager::internUsername);
+    }
+
+    /**
+     * Returns the managers together with the paths of the files they are saved in.
+     *
+     * @return A map from file paths to the managers saved in them.
+     */
+    private LinkedHashMap<String, Object> managersByPath() {
+        LinkedHashMap<String, Object> managers = new LinkedHashMap<>();
+        managers.put(usersPath, userManager);
+        managers.put(eventsPath, eventManager);
+        managers.put(messagesPath, messageManager);
+        managers.put(roomsPath, roomManager);
+        return managers;
+    }
+
+    /**
+     * Called after every menu action. Saves the managers in the background if a checkpoint is due.
+     */
+    private void checkpointIfDue() {
+        checkpointScheduler.actionPerformed(managersByPath());
+    }
+
+    /**
+     * Writes all data to the respective files, once the checkpoints still being written in the background are done.
      *
      * @return Boolean indicating if reading was successful.
      */
     private boolean writeData()
     {
+        checkpointScheduler.awaitCheckpoints();
         try {
+            if (messageContentStore != null)
+                messageContentStore.force();
             readWriteGateway.saveToFile(usersPath, userManager);
             readWriteGateway.saveToFile(eventsPath, eventManager);
             readWriteGateway.saveToFile(messagesPath, messageManager);
@@ -154,7 +255,8 @@ public class ConferenceSystem {
 
     /**
      * Based on user's input, performs appropriate action related to exceptions when reading from files.
-     * User can choose to attempt to read the files again, continue without reading the files, or exit the program.
+     * User can choose to attempt to read the files that could not be read again, continue with new managers in
+     * place of the files that could not be read, or exit the program.
      */
     private void readExceptionChooseOption() {
         String option;
@@ -171,10 +273,16 @@ public class ConferenceSystem {
                     if (managersInitialized)
                         readWritePresenter.printReadSuccess();
                     break;
-                case "2": // Continue without reading
-                    userManager = new UserManager();
-                    eventManager = new EventManager();
-                    messageManager = new MessageManager();
+                case "2": // Continue without reading the files that could not be read
+                    if (unreadPaths.contains(usersPath))
+                        userManager = new UserManager();
+                    if (unreadPaths.contains(eventsPath))
+                        eventManager = new EventManager();
+                    if (unreadPaths.contains(messagesPath))
+                        messageManager = new MessageManager();
+                    if (unreadPaths.contains(roomsPath))
+                        roomManager = new RoomManager();
+                    unreadPaths.clear();
                     managersInitialized = true;
                     break;
                 case "3": // Exit program
@@ -292,6 +400,7 @@ public class ConferenceSystem {
                 default:
                     loginController.invalidOption();
             }
+            checkpointIfDue();
         } while (!menuOption.equals("7"));
     }
 
@@ -318,6 +427,7 @@ public class ConferenceSystem {
                 default:
                     loginController.invalidOption();
             }
+            checkpointIfDue();
         }while (!menuOption.equals("4"));
     }
 
@@ -348,6 +458,7 @@ public class ConferenceSystem {
                 default:
                     loginController.invalidOption();
             }
+            checkpointIfDue();
         } while (!menuOption.equals("5"));
     }
 
@@ -378,6 +489,7 @@ public class ConferenceSystem {
                 default:
                     loginController.invalidOption();
             }
+            checkpointIfDue();
         } while (!menuOption.equals("5"));
     }
 
@@ -408,6 +520,7 @@ public class ConferenceSystem {
                 default:
                     loginController.invalidOption();
             }
+            checkpointIfDue();
         } while (!menuOption.equals("5"));
     }
 
@@ -439,6 +552,7 @@ public class ConferenceSystem {
                 default:
                     signUpController.InvalidInput();
             }
+            checkpointIfDue();
         } while (!menuOption.equals("4"));
     }
 
@@ -466,6 +580,7 @@ public class ConferenceSystem {
                 default:
                     scheduleController.failScheduleMenu();
             }
+            checkpointIfDue();
         } while (!scheduleMenuOption.equals("4"));
     }
 
@@ -501,6 +616,7 @@ public class ConferenceSystem {
                 default:
                     organizerMessageController.invalidInput();
             }
+            checkpointIfDue();
         } while (!organizerMessageMenuOption.equals("0"));
     }
 
@@ -527,6 +643,7 @@ public class ConferenceSystem {
                 default:
                     speakerMessageController.invalidInput();
             }
+            checkpointIfDue();
         } while (!speakerMessageMenuOption.equals("0"));
     }
 
@@ -556,6 +673,7 @@ public class ConferenceSystem {
                 default:
                     messageController.invalidInput();
             }
+            checkpointIfDue();
         } while (!attendeeMessageMenuOption.equals("0"));
     }
 
@@ -582,6 +700,7 @@ public class ConferenceSystem {
                 default:
                     myVIPMessageController.invalidInput();
             }
+            checkpointIfDue();
         } while (!attendeeMessageMenuOption.equals("0"));
     }
 
@@ -617,6 +736,7 @@ public class ConferenceSystem {
                 default:
                     gameController.InvalidInput();
             }
+            checkpointIfDue();
         }while(!choice.equals("5"));
     }
 
@@ -633,6 +753,7 @@ public class ConferenceSystem {
                 default:
                     inputPresenter.printInvalidInput();
             }
+            checkpointIfDue();
         } while (!option.equals("0"));
     }
 
@@ -655,6 +776,7 @@ public class ConferenceSystem {
                 default:
                     inputPresenter.printInvalidInput();
             }
+            checkpointIfDue();
         } while (!option.equals("0"));
     }
 }
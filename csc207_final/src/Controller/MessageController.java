@@ -21,6 +21,12 @@ public class MessageController {
     final String username;
     MessagePresenter messagePresenter;
 
+    // Number of messages shown at a time when viewing a single conversation
+    static final int CONVERSATION_PAGE_SIZE = 20;
+
+    // Messages of the conversation page currently displayed, oldest first
+    ArrayList<UUID> displayedMessages = new ArrayList<>();
+
     /**
      * Constructor for MessageController
      * Creates a new instance of messagePresenter.
@@ -67,7 +73,7 @@ public class MessageController {
      * @return true if message created
      */
     public boolean sendSingleReply(String receiverID, String messageContent){
-        if (myMessageManager.getSenderConversations().contains(receiverID)){
+        if (myMessageManager.hasConversation(receiverID)){
             return myMessageManager.createMessage(receiverID, messageContent);
             }
         else {
@@ -86,7 +92,7 @@ public class MessageController {
             markAsRead();
         } else if (input.equals("2")){
             markAsUnread();
-        } else if (myMessageManager.getSenderConversations().contains(input)){
+        } else if (myMessageManager.hasConversation(input)){
             viewSingleConversation(input);
         }
     }
@@ -98,8 +104,8 @@ public class MessageController {
         messagePresenter.printConversationPrompt();
         Scanner scanner = new Scanner(System.in);
         String input = scanner.nextLine();
-        if (myMessageManager.getSenderConversations().contains(input)){
-            if (myMessageManager.getSenderUnreadConversations().contains(input)) {
+        if (myMessageManager.hasConversation(input)){
+            if (myMessageManager.hasUnreadConversation(input)) {
                 myMessageManager.markConversationAsRead(input);
                 messagePresenter.printMarkedAsRead();
                 return;
@@ -116,8 +122,8 @@ public class MessageController {
         messagePresenter.printConversationPrompt();
         Scanner scanner = new Scanner(System.in);
         String input = scanner.nextLine();
-        if (myMessageManager.getSenderConversations().contains(input)){
-            if (!myMessageManager.getSenderUnreadConversations().contains(input)) {
+        if (myMessageManager.hasConversation(input)){
+            if (!myMessageManager.hasUnreadConversation(input)) {
                 if (myMessageManager.markConversationAsUnread(input)) {
                     messagePresenter.printMarkedAsUnread();
                 } else {
@@ -140,20 +146,37 @@ public class MessageController {
         String input = scanner.nextLine();
         if (input.equals("1")){
             deleteAllArchivedConversations();
-        } else if (myMessageManager.getSenderArchivedConversations().contains(input)){
+        } else if (myMessageManager.hasArchivedConversation(input)){
             viewSingleArchiveConversation(input);
         }
     }
 
     /**
-     * Displays single message history. Prompts the user to either reply to the conversation,
-     * continue browsing conversations, or return to Message menu.
+     * Displays the latest messages of a single message history. Prompts the user to either reply to the
+     * conversation, continue browsing conversations, or return to Message menu.
      *
      * @param conversationPartner String username of the other participant in this conversation history.
      */
     public void viewSingleConversation(String conversationPartner){
+        viewSingleConversation(conversationPartner, null);
+    }
+
+    /**
+     * Displays one page of a single message history, ending just before the given message. Prompts the user to
+     * either reply to the conversation, view older messages if there are any, continue browsing conversations, or
+     * return to Message menu.
+     *
+     * @param conversationPartner String username of the other participant in this conversation history.
+     * @param cursor ID of the oldest message of the previously displayed page, or null for the latest messages.
+     */
+    public void viewSingleConversation(String conversationPartner, UUID cursor){
         Scanner scanner = new Scanner(System.in);
-        messagePresenter.viewSingleConversation(myMessageManager, myUserManager, conversationPartner);
+        displayedMessages = myMessageManager.getConversationPage(conversationPartner, cursor,
+                CONVERSATION_PAGE_SIZE);
+        boolean hasOlderMessages = !displayedMessages.isEmpty()
+                && myMessageManager.hasOlderMessages(conversationPartner, displayedMessages.get(0));
+        messagePresenter.viewSingleConversation(myMessageManager, myUserManager, conversationPartner,
+                displayedMessages, hasOlderMessages);
         String input = scanner.nextLine();
         switch (input) {
             case "0":
@@ -174,6 +197,11 @@ public class MessageController {
             case "5":
                 viewConversations();
                 break;
+            case "6":
+                if (hasOlderMessages) {
+                    viewSingleConversation(conversationPartner, displayedMessages.get(0));
+                }
+                break;
         }
     }
 
@@ -241,6 +269,8 @@ public class MessageController {
      */
     public String getMessageMenu(){
         Scanner scan = new Scanner(System.in);
+        messagePresenter.printUnreadCount(myMessageManager.getUnreadMessageCount(),
+                myMessageManager.getUnreadConversationCount());
         messagePresenter.printMessageMenu();
         return scan.nextLine();
     }
@@ -279,13 +309,13 @@ public class MessageController {
     }
 
     /**
-     * Deletes single message from a conversation given the conversation partner. Prompts for the message number
-     * of the message the user wishes to delete.
+     * Deletes single message from the displayed page of a conversation given the conversation partner. Prompts
+     * for the message number of the message the user wishes to delete.
      *
      * @param conversationPartner - the username of the conversation partner the message is with.
      */
     public void deleteSingleMessage(String conversationPartner){
-        ArrayList<UUID> conversation = myMessageManager.getSingleConversationByReceiver(conversationPartner);
+        ArrayList<UUID> conversation = displayedMessages;
         int toBeDeleted = checkDeleteSingleMessage(conversation);
         if (toBeDeleted > -1){
             myMessageManager.deleteSingleMessage(conversation.get(toBeDeleted));
@@ -309,14 +339,14 @@ public class MessageController {
     }
 
     /**
-     * Archives a single message from a given conversation. Prompts the user for the number of the message
-     * to be archived.
+     * Archives a single message from the displayed page of a given conversation. Prompts the user for the number
+     * of the message to be archived.
      *
      * @param conversationPartner - username of the conversation partner that this message is with.
      */
     public void archiveSingleMessage(String conversationPartner){
         messagePresenter.printMessageNumberPrompt();
-        ArrayList<UUID> conversation = myMessageManager.getSingleConversationByReceiver(conversationPartner);
+        ArrayList<UUID> conversation = displayedMessages;
         Scanner scan = new Scanner(System.in);
         int next = scan.nextInt();
         if (next > conversation.size()){
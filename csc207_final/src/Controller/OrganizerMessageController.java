@@ -62,15 +62,15 @@ public class OrganizerMessageController extends MessageController {
      * @return true if message created
      */
     public boolean sendAllSpeakersMessage(String messageContent){
+        ArrayList<String> speakers = new ArrayList<>();
         for (String userName: myUserManager.getSpeakerList()) {
             if (!myUserManager.canSend(this.username, userName)) {
+                myMessageManager.createMessages(speakers, messageContent);
                 return false;
             }
-            else {
-               myMessageManager.createMessage(userName, messageContent);
-            }
+            speakers.add(userName);
         }
-        return !myUserManager.getSpeakerList().isEmpty();
+        return myMessageManager.createMessages(speakers, messageContent);
     }
 
     /**
@@ -95,14 +95,9 @@ public class OrganizerMessageController extends MessageController {
      * @return true if message created
      */
     public boolean sendAllAttendeesVIPsMessage(String messageContent){
-        for (String userName: myUserManager.getAttendeeList()) {
-            myMessageManager.createMessage(userName, messageContent);
-        }
-
-        for (String userName: myUserManager.getVIPList()) {
-            myMessageManager.createMessage(userName, messageContent);
-        }
-        return !myUserManager.getAttendeeList().isEmpty() || !myUserManager.getVIPList().isEmpty();
+        ArrayList<String> receivers = new ArrayList<>(myUserManager.getAttendeeList());
+        receivers.addAll(myUserManager.getVIPList());
+        return myMessageManager.createMessages(receivers, messageContent);
     }
 
     /**
@@ -124,18 +119,20 @@ public class OrganizerMessageController extends MessageController {
      */
     public String getMessageMenu(){
         Scanner scan = new Scanner(System.in);
+        messagePresenter.printUnreadCount(myMessageManager.getUnreadMessageCount(),
+                myMessageManager.getUnreadConversationCount());
         messagePresenter.printOrganizerMessageMenu();
         return scan.nextLine();
     }
 
     /**
-     * Deletes a single message of a conversation, for organizer and conversation partner both.
+     * Deletes a single message of the displayed conversation page, for organizer and conversation partner both.
      *
      * @param conversationPartner - username of the conversation to delete a single message from.
      */
     @Override
     public void deleteSingleMessage(String conversationPartner){
-        ArrayList<UUID> conversation = myMessageManager.getSingleConversationByReceiver(conversationPartner);
+        ArrayList<UUID> conversation = displayedMessages;
         int toBeDeleted = checkDeleteSingleMessage(conversation);
         if (toBeDeleted > -1){
             myMessageManager.deleteSingleMessageBothSides(conversation.get(toBeDeleted));
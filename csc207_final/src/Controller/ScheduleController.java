@@ -351,7 +351,7 @@ public class ScheduleController {
 
     /**
      * Calls the addEvent() method of EventManager and calls SchedulePresenter to print
-     * if a event is successfully created.
+     * if a event is successfully created. The room is only booked if the event was created.
      *
      * @param name - name of the event wanted to be created (receive from UI)
      * @param speakers - name(s) of the speaker(s) of the event wanted to be created (receive from UI)
@@ -370,7 +370,10 @@ public class ScheduleController {
             }
         }
 
-        eventManager.addEvent(name, speakers, time, room, duration, capacity);
+        if (!eventManager.addEvent(name, speakers, time, room, duration, capacity)) {
+            scheduleP.createEventResult(false, name, speakers, time, room, duration, capacity);
+            return;
+        }
         roomManager.addScheduleTime(room, time, duration);
         scheduleP.createEventResult(true, name, speakers, time, room, duration, capacity);
     }
@@ -277,7 +277,7 @@ public class SignUpController {
         }while (!registered);
         //check if this user can delete this event
         if (eventManager.deleteUserFromEvent(username, eventName)){
-            userManager.getRegisteredEvents(username).remove(eventName);
+            userManager.removeRegisteredEvent(username, eventName);
             sp.printDeleteEventSuccess();
             return; //back to Sign Up System Menu
         }
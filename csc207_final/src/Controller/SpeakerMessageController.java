@@ -5,7 +5,7 @@ import UseCase.EventManager;
 import UseCase.MessageManager;
 import UseCase.UserManager;
 
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.Scanner;
 
 /**
@@ -37,25 +37,20 @@ public class SpeakerMessageController extends MessageController {
 
     /**
      * Sends messages to all attendees enrolled in any Speaker's events.
+     * Attendees of several of the Speaker's events receive the message once.
      *
      * @param messageContent - message of the content
      * @return true if message created
      */
     public boolean sendAllMessageAllEvent(String messageContent) {
-        ArrayList<String> usernames = new ArrayList<>();
-        for (Event event : myEventManager.getEventList()) {
-            if (event.getSpeaker().contains(username)) {
-                if (event.getAttendees().isEmpty()) {
-                    messagePresenter.printNoAttendees(event.getName());
-                }
-                for (String userName : event.getAttendees()) {
-                    if (!usernames.contains(userName)) {
-                        myMessageManager.createMessage(userName, messageContent);
-                        usernames.add(userName);
-                    }
-                }
+        LinkedHashSet<String> usernames = new LinkedHashSet<>();
+        for (Event event : myEventManager.getEventBySpeaker(username)) {
+            if (event.getAttendees().isEmpty()) {
+                messagePresenter.printNoAttendees(event.getName());
             }
+            usernames.addAll(event.getAttendees());
         }
+        myMessageManager.createMessages(usernames, messageContent);
         return !myEventManager.getEventList().isEmpty();
     }
 
@@ -93,9 +88,7 @@ public class SpeakerMessageController extends MessageController {
                 if (!event.getSpeaker().contains(username)) {
                     return false;
                 }
-                for (String userName : event.getAttendees()) {
-                    myMessageManager.createMessage(userName, messageContent);
-                }
+                myMessageManager.createMessages(event.getAttendees(), messageContent);
             }
         }
         return myEventManager.getEvent(eventName);
@@ -149,6 +142,8 @@ public class SpeakerMessageController extends MessageController {
      */
     public String getMessageMenu(){
         Scanner scan = new Scanner(System.in);
+        messagePresenter.printUnreadCount(myMessageManager.getUnreadMessageCount(),
+                myMessageManager.getUnreadConversationCount());
         messagePresenter.printSpeakerMessageMenu();
         return scan.nextLine();
     }
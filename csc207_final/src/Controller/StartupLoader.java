@@ -0,0 +1,106 @@
+package Controller;
+
+import Gateway.ReadWrite;
+import Presenter.ReadWritePresenter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Reads the data files of the conference system at the same time, one file per thread.
+ *
+ * Every file is read on its own, so a file that cannot be read does not stop the others from being read.
+ * The time taken to read each file is printed as soon as it has been read.
+ */
+public class StartupLoader {
+    private final ReadWrite readWriteGateway;
+    private final ReadWritePresenter readWritePresenter;
+
+    /**
+     * Creates a StartupLoader.
+     *
+     * @param readWriteGateway - The gateway used to read the files. It must allow reading several files at once.
+     * @param readWritePresenter - The presenter used to print the progress of reading.
+     */
+    public StartupLoader(ReadWrite readWriteGateway, ReadWritePresenter readWritePresenter) {
+        this.readWriteGateway = readWriteGateway;
+        this.readWritePresenter = readWritePresenter;
+    }
+
+    /**
+     * Reads all given files at the same time and waits until every file has been read or has failed.
+     *
+     * @param filepaths - The paths of the files to read.
+     * @return a HashMap from the path of every file that was read successfully to the Object read from it.
+     * Files that could not be read are left out.
+     */
+    public HashMap<String, Object> readAll(List<String> filepaths) {
+        HashMap<String, Object> read = new HashMap<>();
+        if (filepaths.isEmpty())
+            return read;
+
+        ExecutorService executor = Executors.newFixedThreadPool(filepaths.size());
+        CompletionService<FileRead> reads = new ExecutorCompletionService<>(executor);
+        long start = System.nanoTime();
+        try {
+            for (String filepath : filepaths) {
+                reads.submit(() -> readFile(filepath));
+            }
+            for (int i = 0; i < filepaths.size(); i++) {
+                FileRead fileRead = reads.take().get();
+                if (fileRead.data != null) {
+                    read.put(fileRead.filepath, fileRead.data);
+                    readWritePresenter.printFileRead(fileRead.filepath, fileRead.millis);
+                } else {
+                    readWritePresenter.printFileReadError(fileRead.filepath);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // readFile catches every exception thrown while reading, so this is never reached.
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        readWritePresenter.printAllFilesRead(read.size(), filepaths.size(), millisSince(start));
+        return read;
+    }
+
+    /**
+     * Reads a single file and times how long it took.
+     *
+     * @param filepath - The path of the file to read.
+     * @return the result of reading the file, holding no data if the file could not be read.
+     */
+    private FileRead readFile(String filepath) {
+        long start = System.nanoTime();
+        Object data;
+        try {
+            data = readWriteGateway.readFromFile(filepath);
+        } catch (Exception e) {
+            data = null;
+        }
+        return new FileRead(filepath, data, millisSince(start));
+    }
+
+    private long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * The result of reading one file.
+     */
+    private static class FileRead {
+        private final String filepath;
+        private final Object data; // null if the file could not be read
+        private final long millis;
+
+        private FileRead(String filepath, Object data, long millis) {
+            this.filepath = filepath;
+            this.data = data;
+            this.millis = millis;
+        }
+    }
+}
@@ -29,6 +29,8 @@ public class VIPMessageController extends MessageController{
      */
     public String getVIPMessageMenu() {
         Scanner scan = new Scanner(System.in);
+        messagePresenter.printUnreadCount(myMessageManager.getUnreadMessageCount(),
+                myMessageManager.getUnreadConversationCount());
         messagePresenter.printVIPMessageMenu();
         return scan.nextLine();
     }
@@ -55,13 +57,13 @@ public class VIPMessageController extends MessageController{
     }
 
     /**
-     * Deletes a single message of a conversation, for VIP and conversation partner both.
+     * Deletes a single message of the displayed conversation page, for VIP and conversation partner both.
      *
      * @param conversationPartner - username of the conversation to delete a single message from.
      */
     @Override
     public void deleteSingleMessage(String conversationPartner){
-        ArrayList<UUID> conversation = myMessageManager.getSingleConversationByReceiver(conversationPartner);
+        ArrayList<UUID> conversation = displayedMessages;
         int toBeDeleted = checkDeleteSingleMessage(conversation);
         if (toBeDeleted > -1){
             myMessageManager.deleteSingleMessageBothSides(conversation.get(toBeDeleted));
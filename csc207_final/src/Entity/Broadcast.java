@@ -0,0 +1,382 @@
+package Entity;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * A class that represents the same message sent by one sender to many receivers.
+ *
+ * The sender, content and time are stored once. Each receiver is a recipient numbered by its position, and the
+ * read, archived and deleted flags of every recipient's copy of the message are stored as one bit per recipient.
+ * Every copy has its own message ID, made from the ID of the broadcast and the number of the recipient.
+ */
+public class Broadcast implements Serializable {
+    private static final long serialVersionUID = 1005462634914418200L;
+
+    // Version number stored in the IDs of broadcasts and of their copies, random messages use version 4
+    private static final int ID_VERSION = 8;
+    private static final long RECIPIENT_MASK = 0xFFFFFFFFL; // Bits of a copy's ID holding its recipient number + 1
+
+    // Bits of the flags of a copy, as returned by getFlags
+    private static final int READ = 1;
+    private static final int ARCHIVED_BY_SENDER = 1 << 1;
+    private static final int ARCHIVED_BY_RECEIVER = 1 << 2;
+    private static final int DELETED_BY_SENDER = 1 << 3;
+    private static final int DELETED_BY_RECEIVER = 1 << 4;
+
+    private final UUID id; // id of broadcast, with no recipient number
+    private String sender;// Stores the name of the sender
+    private final String[] receivers;// Stores the names of the receivers, in recipient order
+    private String content;// Stores the content of the message, or null if it was moved to a content store
+    private long contentReference = -1; // Reference to the content in a content store, or -1 if it is not stored
+    private final LocalDateTime time;// time when the broadcast was created
+    private final BitSet read; // Stores which recipients have read their copy
+    private final BitSet archivedBySender; // Stores which copies have been archived by the sender
+    private final BitSet archivedByReceiver; // Stores which copies have been archived by their receiver
+    private final BitSet deletedBySender; // Stores which copies have been deleted by the sender
+    private final BitSet deletedByReceiver; // Stores which copies have been deleted by their receiver
+
+    /**
+     * Create new broadcast
+     * @param sender- sender of this broadcast
+     * @param receivers- receivers of this broadcast, one copy is sent to each
+     * @param content- content of this broadcast
+     */
+    public Broadcast(String sender, Collection<String> receivers, String content) {
+        this(newId(), sender, receivers.toArray(new String[0]), content, LocalDateTime.now());
+    }
+
+    /**
+     * Recreate a previously created broadcast, such as one read back from a file. All flags start as false.
+     * @param id- id of this broadcast
+     * @param sender- sender of this broadcast
+     * @param receivers- receivers of this broadcast, in recipient order
+     * @param content- content of this broadcast
+     * @param time- time when this broadcast was created
+     */
+    public Broadcast(UUID id, String sender, String[] receivers, String content, LocalDateTime time) {
+        if (!isBroadcastId(id)) {
+            throw new IllegalArgumentException("Invalid input: not a broadcast id");
+        }
+        this.id = id;
+        this.sender = sender;
+        this.receivers = receivers;
+        this.content = content;
+        this.time = time;
+        this.read = new BitSet(receivers.length);
+        this.archivedBySender = new BitSet(receivers.length);
+        this.archivedByReceiver = new BitSet(receivers.length);
+        this.deletedBySender = new BitSet(receivers.length);
+        this.deletedByReceiver = new BitSet(receivers.length);
+    }
+
+    /**
+     * Creates a random broadcast id, with the version of broadcast ids and no recipient number.
+     * @return new broadcast id
+     */
+    private static UUID newId() {
+        UUID random = UUID.randomUUID();
+        long mostSignificantBits = (random.getMostSignificantBits() & ~0xF000L) | (ID_VERSION << 12);
+        return new UUID(mostSignificantBits, random.getLeastSignificantBits() & ~RECIPIENT_MASK);
+    }
+
+    /**
+     * Checks if an id belongs to a broadcast
+     * @param id- id to check
+     * @return true if the id is the id of a broadcast, false otherwise
+     */
+    public static boolean isBroadcastId(UUID id) {
+        return id.version() == ID_VERSION && (id.getLeastSignificantBits() & RECIPIENT_MASK) == 0;
+    }
+
+    /**
+     * Checks if an id belongs to a recipient's copy of a broadcast
+     * @param messageID- id to check
+     * @return true if the id is the message id of a copy, false if it belongs to a Message or a broadcast
+     */
+    public static boolean isCopyId(UUID messageID) {
+        return messageID.version() == ID_VERSION && (messageID.getLeastSignificantBits() & RECIPIENT_MASK) != 0;
+    }
+
+    /**
+     * Getter of the broadcast id that a copy's id was made from
+     * @param messageID- id of a copy of a broadcast
+     * @return broadcast id
+     */
+    public static UUID getBroadcastId(UUID messageID) {
+        return new UUID(messageID.getMostSignificantBits(), messageID.getLeastSignificantBits() & ~RECIPIENT_MASK);
+    }
+
+    /**
+     * Getter of the recipient number stored in a copy's id
+     * @param messageID- id of a copy of a broadcast
+     * @return recipient number
+     */
+    public static int getRecipient(UUID messageID) {
+        return (int) (messageID.getLeastSignificantBits() & RECIPIENT_MASK) - 1;
+    }
+
+    /**
+     * Getter of id
+     * @return broadcast id
+     */
+    public UUID getId() {
+        return id;
+    }
+
+    /**
+     * Getter of the message id of a recipient's copy
+     * @param recipient- number of the recipient
+     * @return message id
+     */
+    public UUID getMessageId(int recipient) {
+        return new UUID(id.getMostSignificantBits(), id.getLeastSignificantBits() | (recipient + 1L));
+    }
+
+    /**
+     * Getter of sender
+     * @return sender name
+     */
+    public String getSender() {
+        return sender;
+    }
+
+    /**
+     * Getter of the number of recipients
+     * @return number of receivers
+     */
+    public int getRecipientCount() {
+        return receivers.length;
+    }
+
+    /**
+     * Getter of receiver
+     * @param recipient- number of the recipient
+     * @return receiver name
+     */
+    public String getReceiver(int recipient) {
+        return receivers[recipient];
+    }
+
+    /**
+     * Replaces the sender and receiver names with equal instances shared with the rest of the program.
+     * @param intern- returns the shared instance of a username
+     */
+    public void internUsernames(UnaryOperator<String> intern) {
+        this.sender = intern.apply(sender);
+        for (int i = 0; i < receivers.length; i++) {
+            receivers[i] = intern.apply(receivers[i]);
+        }
+    }
+
+    /**
+     * Getter of content
+     * @return content, or null if the content was moved to a content store
+     */
+    public String getContent() {
+        return content;
+    }
+
+    /**
+     * Getter of content reference
+     * @return reference to the content in a content store, or -1 if the content was never stored
+     */
+    public long getContentReference() {
+        return contentReference;
+    }
+
+    /**
+     * Records that the content was moved to a content store and drops it from the broadcast.
+     * @param contentReference- reference to the content in the content store
+     */
+    public void moveContentToStore(long contentReference) {
+        this.contentReference = contentReference;
+        this.content = null;
+    }
+
+    /**
+     * Getter of time
+     * @return time when the broadcast was sent
+     */
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    /**
+     * Getter of time as a number, in the same form as Message.getTimeNanos
+     * @return time when the broadcast was sent, as nanoseconds since 1970-01-01T00:00
+     */
+    public long getTimeNanos() {
+        return Message.toTimeNanos(time);
+    }
+
+    /**
+     * Getter for read status of a recipient's copy.
+     *
+     * @param recipient- number of the recipient
+     * @return true if the copy has been read, false if not.
+     */
+    public boolean isReadStatus(int recipient) { return read.get(recipient);}
+
+    /**
+     * Getter for sender archive status of a recipient's copy.
+     *
+     * @param recipient- number of the recipient
+     * @return true if the copy is archived by sender, false if not.
+     */
+    public boolean isArchivedBySender(int recipient) { return archivedBySender.get(recipient);}
+
+    /**
+     * Getter for receiver archive status of a recipient's copy.
+     *
+     * @param recipient- number of the recipient
+     * @return true if the copy is archived by its receiver, false if not.
+     */
+    public boolean isArchivedByReceiver(int recipient) { return archivedByReceiver.get(recipient);}
+
+    /**
+     * Getter for sender delete status of a recipient's copy.
+     *
+     * @param recipient- number of the recipient
+     * @return true if the copy is deleted by sender, false if not.
+     */
+    public boolean isDeletedBySender(int recipient) { return deletedBySender.get(recipient);}
+
+    /**
+     * Getter for receiver delete status of a recipient's copy.
+     *
+     * @param recipient- number of the recipient
+     * @return true if the copy is deleted by its receiver, false if not.
+     */
+    public boolean isDeletedByReceiver(int recipient) { return deletedByReceiver.get(recipient);}
+
+    /**
+     * Checks if a recipient's copy has been deleted by both its sender and its receiver.
+     *
+     * @param recipient- number of the recipient
+     * @return true if the copy is deleted by both, false if not.
+     */
+    public boolean isFullyDeleted(int recipient) {
+        return deletedBySender.get(recipient) && deletedByReceiver.get(recipient);
+    }
+
+    /**
+     * Checks if every copy has been deleted by both its sender and its receiver.
+     *
+     * @return true if no copy is left in any inbox, false if not.
+     */
+    public boolean isFullyDeleted() {
+        BitSet fullyDeleted = (BitSet) deletedBySender.clone();
+        fullyDeleted.and(deletedByReceiver);
+        return fullyDeleted.cardinality() == receivers.length;
+    }
+
+    /**
+     * Getter of all flags of a recipient's copy at once, such as for saving them.
+     *
+     * @param recipient- number of the recipient
+     * @return the read, archived and deleted flags of the copy, one bit each
+     */
+    public byte getFlags(int recipient) {
+        int flags = 0;
+        if (read.get(recipient)) flags |= READ;
+        if (archivedBySender.get(recipient)) flags |= ARCHIVED_BY_SENDER;
+        if (archivedByReceiver.get(recipient)) flags |= ARCHIVED_BY_RECEIVER;
+        if (deletedBySender.get(recipient)) flags |= DELETED_BY_SENDER;
+        if (deletedByReceiver.get(recipient)) flags |= DELETED_BY_RECEIVER;
+        return (byte) flags;
+    }
+
+    /**
+     * Sets all flags of a recipient's copy at once, to values returned by getFlags.
+     *
+     * @param recipient- number of the recipient
+     * @param flags- the read, archived and deleted flags of the copy, one bit each
+     */
+    public void setFlags(int recipient, byte flags) {
+        read.set(recipient, (flags & READ) != 0);
+        archivedBySender.set(recipient, (flags & ARCHIVED_BY_SENDER) != 0);
+        archivedByReceiver.set(recipient, (flags & ARCHIVED_BY_RECEIVER) != 0);
+        deletedBySender.set(recipient, (flags & DELETED_BY_SENDER) != 0);
+        deletedByReceiver.set(recipient, (flags & DELETED_BY_RECEIVER) != 0);
+    }
+
+    /**
+     * Marks a recipient's copy as read (by receiver).
+     * @param recipient- number of the recipient
+     */
+    public void markAsRead(int recipient) { read.set(recipient);}
+
+    /**
+     * Marks a recipient's copy as unread (by receiver).
+     * @param recipient- number of the recipient
+     */
+    public void markAsUnread(int recipient) { read.clear(recipient);}
+
+    /**
+     * Sets sender archive status of a recipient's copy to true.
+     * @param recipient- number of the recipient
+     */
+    public void markAsSenderArchive(int recipient) { archivedBySender.set(recipient);}
+
+    /**
+     * Sets sender archive status of a recipient's copy to false.
+     * @param recipient- number of the recipient
+     */
+    public void unMarkAsSenderArchive(int recipient) { archivedBySender.clear(recipient);}
+
+    /**
+     * Sets receiver archive status of a recipient's copy to true.
+     * @param recipient- number of the recipient
+     */
+    public void markAsReceiverArchive(int recipient) { archivedByReceiver.set(recipient);}
+
+    /**
+     * Sets receiver archive status of a recipient's copy to false.
+     * @param recipient- number of the recipient
+     */
+    public void unMarkAsReceiverArchive(int recipient) { archivedByReceiver.clear(recipient);}
+
+    /**
+     * Sets sender delete status of a recipient's copy to true, and its sender archive status to false.
+     * Irreversible action.
+     * @param recipient- number of the recipient
+     */
+    public void markAsSenderDeleted(int recipient) {
+        deletedBySender.set(recipient);
+        archivedBySender.clear(recipient);
+    }
+
+    /**
+     * Sets receiver delete status of a recipient's copy to true, and its receiver archive status to false.
+     * Irreversible action.
+     * @param recipient- number of the recipient
+     */
+    public void markAsReceiverDeleted(int recipient) {
+        deletedByReceiver.set(recipient);
+        archivedByReceiver.clear(recipient);
+    }
+
+    /**
+     * Creates a standalone Message holding a recipient's copy, with the same id, content and flags.
+     * @param recipient- number of the recipient
+     * @return copy of the broadcast sent to the recipient
+     */
+    public Message toMessage(int recipient) {
+        Message message = new Message(getMessageId(recipient), sender, receivers[recipient], content, time);
+        if (content == null && contentReference >= 0) {
+            message.moveContentToStore(contentReference);
+        }
+        // Deletion clears the archive flags, so it is copied first
+        if (isDeletedBySender(recipient)) message.markAsSenderDeleted();
+        if (isDeletedByReceiver(recipient)) message.markAsReceiverDeleted();
+        if (isArchivedBySender(recipient)) message.markAsSenderArchive();
+        if (isArchivedByReceiver(recipient)) message.markAsReceiverArchive();
+        if (isReadStatus(recipient)) message.markAsRead();
+        return message;
+    }
+}
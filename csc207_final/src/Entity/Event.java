@@ -1,20 +1,42 @@
 package Entity;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 /**
  * A class that represents an event.
+ *
+ * The attendees are kept in a set, but events are still serialized with the list of attendees they had before,
+ * so that events saved earlier can be read back.
  * @author An Yen
  */
 public class Event implements Serializable {
+    private static final long serialVersionUID = 4469216030152542145L;
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("name", String.class),
+            new ObjectStreamField("speaker", ArrayList.class),
+            new ObjectStreamField("time", LocalDateTime.class),
+            new ObjectStreamField("attendees", ArrayList.class),
+            new ObjectStreamField("room", int.class),
+            new ObjectStreamField("duration", int.class),
+            new ObjectStreamField("capacity", int.class)
+    };
+
     private String name; // name of event
     private ArrayList<String> speaker; // an arraylist of name(s) of speaker(s)
     private LocalDateTime time; //time of the event
-    private final ArrayList<String> attendees; // names of the attendees
-    private final int room; // room number
-    private final int duration; // the duration of this event
+    private LinkedHashSet<String> attendees; // names of the attendees, in the order they signed up
+    private int room; // room number
+    private int duration; // the duration of this event
     private int capacity; // the capacity of this event
 
     /**
@@ -32,7 +54,7 @@ public class Event implements Serializable {
         this.speaker = speaker;
         this.time = time;
         this.room = room;
-        this.attendees = new ArrayList<>();
+        this.attendees = new LinkedHashSet<>();
         this.duration = duration;
         this.capacity = capacity;
     }
@@ -91,10 +113,32 @@ public class Event implements Serializable {
     }
 
     /**
-     * Return the list of attendees
-     * @return the list of attendees
+     * Removes an attendee from this event.
+     * @param attendeeName- the attendee's name
+     * @return true if the attendee was attending this event
+     */
+    public boolean removeAttendee(String attendeeName) {
+        return this.attendees.remove(attendeeName);
+    }
+
+    /**
+     * Replaces the speaker and attendee names with equal instances shared with the rest of the program.
+     * @param intern- returns the shared instance of a username
+     */
+    public void internUsernames(UnaryOperator<String> intern) {
+        speaker.replaceAll(intern);
+        ArrayList<String> attendeeNames = new ArrayList<>(attendees);
+        attendees.clear();
+        for (String attendeeName : attendeeNames) {
+            attendees.add(intern.apply(attendeeName));
+        }
+    }
+
+    /**
+     * Return the attendees in the order they signed up. The returned set cannot be changed.
+     * @return the set of attendees
      */
-    public ArrayList<String> getAttendees() {return attendees;}
+    public Set<String> getAttendees() {return Collections.unmodifiableSet(attendees);}
 
     /**
      * This method sets the name of this event.
@@ -136,4 +180,28 @@ public class Event implements Serializable {
     public int getNumberOfAttendees() {
         return attendees.size() + speaker.size();
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("name", name);
+        fields.put("speaker", speaker);
+        fields.put("time", time);
+        fields.put("attendees", new ArrayList<>(attendees));
+        fields.put("room", room);
+        fields.put("duration", duration);
+        fields.put("capacity", capacity);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        name = (String) fields.get("name", null);
+        speaker = (ArrayList<String>) fields.get("speaker", null);
+        time = (LocalDateTime) fields.get("time", null);
+        attendees = new LinkedHashSet<>((ArrayList<String>) fields.get("attendees", new ArrayList<String>()));
+        room = fields.get("room", 0);
+        duration = fields.get("duration", 0);
+        capacity = fields.get("capacity", 0);
+    }
 }
\ No newline at end of file
@@ -1,23 +1,55 @@
 package Entity;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.UUID;
+import java.util.function.UnaryOperator;
 
 /**
  * A class that represents a Message.
+ *
+ * The fields are kept compact, since there can be millions of messages: the id is stored as the two halves of
+ * its UUID, the time as a number of nanoseconds, and the five flags as bits of a single byte. Messages are still
+ * serialized with the fields they had before, so that messages saved earlier can be read back.
  */
 public class Message implements Serializable, Comparable<Message> {
-    private final UUID id; // id of message
-    private final String sender;// Stores the name of the sender
+    private static final long serialVersionUID = 8390343187091190446L;
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", UUID.class),
+            new ObjectStreamField("sender", String.class),
+            new ObjectStreamField("receiver", String.class),
+            new ObjectStreamField("content", String.class),
+            new ObjectStreamField("contentReference", long.class),
+            new ObjectStreamField("time", LocalDateTime.class),
+            new ObjectStreamField("readStatus", boolean.class),
+            new ObjectStreamField("archivedBySender", boolean.class),
+            new ObjectStreamField("archivedByReceiver", boolean.class),
+            new ObjectStreamField("deletedBySender", boolean.class),
+            new ObjectStreamField("deletedByReceiver", boolean.class)
+    };
+
+    // Bits of the flags
+    private static final int READ = 1;
+    private static final int ARCHIVED_BY_SENDER = 1 << 1;
+    private static final int ARCHIVED_BY_RECEIVER = 1 << 2;
+    private static final int DELETED_BY_SENDER = 1 << 3;
+    private static final int DELETED_BY_RECEIVER = 1 << 4;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private long idMostSignificantBits; // id of message, stored as the two halves of the UUID
+    private long idLeastSignificantBits;
+    private String sender;// Stores the name of the sender
     private String receiver;// Stores the name of the receiver
-    private String content;// Stores the content of the message
-    private final LocalDateTime time = LocalDateTime.now();// time when the message create
-    private boolean readStatus = false; // Stores if the message has been read by the receiver
-    private boolean archivedBySender = false; // Stores if the message has been archived by the sender
-    private boolean archivedByReceiver = false; // Stores if the message has been archived by the receiver
-    private boolean deletedBySender = false; // Stores if the message has been deleted by the sender
-    private boolean deletedByReceiver = false; // Stores if the message has been deleted by the receiver
+    private String content;// Stores the content of the message, or null if it was moved to a content store
+    private long contentReference = -1; // Reference to the content in a content store, or -1 if it is not stored
+    private long timeNanos;// time when the message create, as nanoseconds since 1970-01-01T00:00
+    private byte flags = 0; // Stores if the message has been read, archived or deleted, one bit per flag
 
 
     /**
@@ -27,10 +59,33 @@ public class Message implements Serializable, Comparable<Message> {
      * @param content- content of this message
      */
     public Message(String sender, String receiver, String content) {
+        this(UUID.randomUUID(), sender, receiver, content, LocalDateTime.now());
+    }
+
+    /**
+     * Recreate a previously created message, such as one read back from a file. All flags start as false.
+     * @param id- id of this message
+     * @param sender- sender of this message
+     * @param receiver- receiver of this message
+     * @param content- content of this message
+     * @param time- time when this message was created
+     */
+    public Message(UUID id, String sender, String receiver, String content, LocalDateTime time) {
+        this.idMostSignificantBits = id.getMostSignificantBits();
+        this.idLeastSignificantBits = id.getLeastSignificantBits();
         this.sender = sender;
         this.receiver = receiver;
         this.content = content;
-        this.id = UUID.randomUUID();
+        this.timeNanos = toTimeNanos(time);
+    }
+
+    /**
+     * Converts a time to the number of nanoseconds since 1970-01-01T00:00, which is how messages store it.
+     * @param time- time to convert
+     * @return nanoseconds since 1970-01-01T00:00
+     */
+    static long toTimeNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + time.getNano();
     }
 
     /**
@@ -57,20 +112,47 @@ public class Message implements Serializable, Comparable<Message> {
         this.receiver = receiver;
     }
 
+    /**
+     * Replaces the sender and receiver names with equal instances shared with the rest of the program.
+     * @param intern- returns the shared instance of a username
+     */
+    public void internUsernames(UnaryOperator<String> intern) {
+        this.sender = intern.apply(sender);
+        this.receiver = intern.apply(receiver);
+    }
+
     /**
      * Getter of content
-     * @return content
+     * @return content, or null if the content was moved to a content store
      */
     public String getContent() {
         return content;
     }
 
     /**
-     * Setter of content
+     * Setter of content. The content is kept in the message, even if it was previously moved to a content store.
      * @param content- content
      */
     public void setContent(String content) {
         this.content = content;
+        this.contentReference = -1;
+    }
+
+    /**
+     * Getter of content reference
+     * @return reference to the content in a content store, or -1 if the content was never stored
+     */
+    public long getContentReference() {
+        return contentReference;
+    }
+
+    /**
+     * Records that the content was moved to a content store and drops it from the message.
+     * @param contentReference- reference to the content in the content store
+     */
+    public void moveContentToStore(long contentReference) {
+        this.contentReference = contentReference;
+        this.content = null;
     }
 
     /**
@@ -78,7 +160,7 @@ public class Message implements Serializable, Comparable<Message> {
      * @return message id
      */
     public UUID getId() {
-        return id;
+        return new UUID(idMostSignificantBits, idLeastSignificantBits);
     }
 
     /**
@@ -86,11 +168,28 @@ public class Message implements Serializable, Comparable<Message> {
      * @return time when the message sends
      */
     public LocalDateTime getTime() {
-        return time;
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(timeNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(timeNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    /**
+     * Getter of time as a number, for comparing times without creating LocalDateTime objects
+     * @return time when the message sends, as nanoseconds since 1970-01-01T00:00
+     */
+    public long getTimeNanos() {
+        return timeNanos;
     }
 
     public int compareTo(Message msg) {
-        return this.time.compareTo(msg.time);
+        return Long.compare(this.timeNanos, msg.timeNanos);
+    }
+
+    private boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private void setFlag(int flag, boolean value) {
+        flags = (byte) (value ? flags | flag : flags & ~flag);
     }
 
     /**
@@ -98,65 +197,65 @@ public class Message implements Serializable, Comparable<Message> {
      *
      * @return true if message has been read, false if not.
      */
-    public boolean isReadStatus() { return readStatus;}
+    public boolean isReadStatus() { return hasFlag(READ);}
 
     /**
      * Getter for sender archive status of message.
      *
      * @return true if message archived by sender, false if not.
      */
-    public boolean isArchivedBySender() { return archivedBySender;}
+    public boolean isArchivedBySender() { return hasFlag(ARCHIVED_BY_SENDER);}
 
     /**
      * Getter for receiver archive status of message.
      *
      * @return true if message archived by receiver, false if not.
      */
-    public boolean isArchivedByReceiver() {return archivedByReceiver;}
+    public boolean isArchivedByReceiver() {return hasFlag(ARCHIVED_BY_RECEIVER);}
 
     /**
      * Getter for sender delete status of message.
      *
      * @return true if message deleted by sender, false if not.
      */
-    public boolean isDeletedBySender() {return deletedBySender;}
+    public boolean isDeletedBySender() {return hasFlag(DELETED_BY_SENDER);}
 
     /**
      * Getter for receiver delete status of message.
      *
      * @return true if message deleted by receiver, false if not.
      */
-    public boolean isDeletedByReceiver() {return deletedByReceiver;}
+    public boolean isDeletedByReceiver() {return hasFlag(DELETED_BY_RECEIVER);}
 
     /**
      * Marks message as read (by receiver). Sets value of readStatus to true.
      */
-    public void markAsRead() { readStatus = true;}
+    public void markAsRead() { setFlag(READ, true);}
 
     /**
      * Marks message as unread (by receiver). Sets value of readStatus to false.
      */
-    public void markAsUnread() {readStatus = false;}
+    public void markAsUnread() { setFlag(READ, false);}
 
     /**
      * Sets value of sender archive status to true.
      */
-    public void markAsSenderArchive() { archivedBySender = true;}
+    public void markAsSenderArchive() { setFlag(ARCHIVED_BY_SENDER, true);}
 
     /**
      * Sets value of sender archive status to false.
      */
-    public void unMarkAsSenderArchive() { archivedBySender = false;}
+    public void unMarkAsSenderArchive() { setFlag(ARCHIVED_BY_SENDER, false);}
 
     /**
      * Sets value of receiver archive status to true.
      */
-    public void markAsReceiverArchive() { archivedByReceiver = true;}
+    public void markAsReceiverArchive() { setFlag(ARCHIVED_BY_RECEIVER, true);}
 
     /**
      * Sets value of receiver archive status to false.
      */
-    public void unMarkAsReceiverArchive() { archivedByReceiver = false;}
+    public void unMarkAsReceiverArchive() { setFlag(ARCHIVED_BY_RECEIVER, false);}
 
     /**
      * Sets value of sender delete status to true. Irreversible action.
@@ -164,8 +263,8 @@ public class Message implements Serializable, Comparable<Message> {
      * and archived by the sender at the same time.
      */
     public void markAsSenderDeleted() {
-        deletedBySender = true;
-        archivedBySender = false;
+        setFlag(DELETED_BY_SENDER, true);
+        setFlag(ARCHIVED_BY_SENDER, false);
     }
 
     /**
@@ -174,7 +273,40 @@ public class Message implements Serializable, Comparable<Message> {
      * and archived by the receiver at the same time.
      */
     public void markAsReceiverDeleted() {
-        deletedByReceiver = true;
-        archivedByReceiver = false;
+        setFlag(DELETED_BY_RECEIVER, true);
+        setFlag(ARCHIVED_BY_RECEIVER, false);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("id", getId());
+        fields.put("sender", sender);
+        fields.put("receiver", receiver);
+        fields.put("content", content);
+        fields.put("contentReference", contentReference);
+        fields.put("time", getTime());
+        fields.put("readStatus", isReadStatus());
+        fields.put("archivedBySender", isArchivedBySender());
+        fields.put("archivedByReceiver", isArchivedByReceiver());
+        fields.put("deletedBySender", isDeletedBySender());
+        fields.put("deletedByReceiver", isDeletedByReceiver());
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        UUID id = (UUID) fields.get("id", null);
+        idMostSignificantBits = id.getMostSignificantBits();
+        idLeastSignificantBits = id.getLeastSignificantBits();
+        sender = (String) fields.get("sender", null);
+        receiver = (String) fields.get("receiver", null);
+        content = (String) fields.get("content", null);
+        contentReference = fields.get("contentReference", -1L);
+        timeNanos = toTimeNanos((LocalDateTime) fields.get("time", null));
+        setFlag(READ, fields.get("readStatus", false));
+        setFlag(ARCHIVED_BY_SENDER, fields.get("archivedBySender", false));
+        setFlag(ARCHIVED_BY_RECEIVER, fields.get("archivedByReceiver", false));
+        setFlag(DELETED_BY_SENDER, fields.get("deletedBySender", false));
+        setFlag(DELETED_BY_RECEIVER, fields.get("deletedByReceiver", false));
     }
 }
\ No newline at end of file
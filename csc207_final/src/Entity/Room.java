@@ -10,6 +10,7 @@ import java.util.TreeMap;
  * @author Filip Jovanovic
  */
 public class Room implements Serializable {
+    private static final long serialVersionUID = 3358583993790333139L; // Same as in rooms.ser files saved so far
     private TreeMap<LocalDateTime, LocalDateTime> schedule = new TreeMap<>();
     private int roomNumber;
     private int capacity;
@@ -46,7 +47,16 @@ public class Room implements Serializable {
      * @param duration the duration of the event
      */
     public void addToSchedule(LocalDateTime startTime, int duration) {
-        LocalDateTime endTime = startTime.plusHours(duration);
+        addToSchedule(startTime, startTime.plusHours(duration));
+    }
+
+    /**
+     * Adds a start time and end time to the dictionary corresponding to a time range for an event, given the event
+     * start time and end time.
+     * @param startTime the start time of the event
+     * @param endTime the end time of the event
+     */
+    public void addToSchedule(LocalDateTime startTime, LocalDateTime endTime) {
         schedule.put(startTime, endTime);
     }
 
@@ -0,0 +1,567 @@
+package Gateway;
+
+import Entity.Broadcast;
+import Entity.Event;
+import Entity.Message;
+import Entity.UserAccount;
+import UseCase.EventManager;
+import UseCase.MessageManager;
+import UseCase.RoomBuilder;
+import UseCase.RoomManager;
+import UseCase.UserManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Provides methods for saving the use cases to files and reading them back in a compact binary format, instead of
+ * default Java serialization.
+ *
+ * Every file starts with a header made of a magic number, the schema version and a tag naming the use case stored
+ * in the file. Messages store their ID as two longs, their time as epoch seconds and nanoseconds, their flags as a
+ * bitfield, and their sender and receiver as indexes into a table of usernames written once per file. Messages whose
+ * content was moved to a content store only store the reference to it. Broadcasts are stored like a message with a
+ * list of receivers, each followed by the flags of its copy.
+ *
+ * Objects other than the four use cases are written with default Java serialization after the header. Files that
+ * do not start with the header are read with a ReadWriteGateway, so files written before this format still load.
+ *
+ * The gateway can optionally compress the files it writes with GZIP. Reading detects whether a file is compressed,
+ * so files written in either mode can always be read back.
+ */
+public class BinaryReadWriteGateway implements ReadWrite {
+    private static final int MAGIC = 0x43534246;
+    private static final int SCHEMA_VERSION = 3; // 2: messages store their content store reference, 3: broadcasts
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Tags naming the contents of a file
+    private static final byte SERIALIZED_OBJECT = 0;
+    private static final byte USERS = 1;
+    private static final byte EVENTS = 2;
+    private static final byte MESSAGES = 3;
+    private static final byte ROOMS = 4;
+
+    // Bits of the message flags
+    private static final int READ = 1;
+    private static final int ARCHIVED_BY_SENDER = 1 << 1;
+    private static final int ARCHIVED_BY_RECEIVER = 1 << 2;
+    private static final int DELETED_BY_SENDER = 1 << 3;
+    private static final int DELETED_BY_RECEIVER = 1 << 4;
+
+    // Bits of the room features
+    private static final int SOUND_SYSTEM = 1;
+    private static final int STAGE = 1 << 1;
+    private static final int ACCESSIBLE = 1 << 2;
+    private static final int WIFI = 1 << 3;
+
+    private final ReadWrite legacyGateway = new ReadWriteGateway();
+    private final boolean compressed;
+
+    /**
+     * Creates a BinaryReadWriteGateway that writes uncompressed files.
+     */
+    public BinaryReadWriteGateway() {
+        this(false);
+    }
+
+    /**
+     * Creates a BinaryReadWriteGateway.
+     *
+     * @param compressed true if files written should be compressed with GZIP, false otherwise.
+     */
+    public BinaryReadWriteGateway(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    /**
+     * Reads a use case from a file.
+     *
+     * @param filepath The filepath to the file to read from.
+     * @return Object containing the use case read from the file.
+     * @throws ClassNotFoundException - If class of an Object read with Java serialization does not exist.
+     * @throws IOException - If an I/O error occurs while opening the file, or the file contents are invalid.
+     */
+    @Override
+    public Object readFromFile(String filepath) throws ClassNotFoundException, IOException {
+        if (!isBinaryFile(filepath)) {
+            return legacyGateway.readFromFile(filepath);
+        }
+
+        try (DataInputStream input = new DataInputStream(
+                decompressIfNeeded(new BufferedInputStream(new FileInputStream(filepath), BUFFER_SIZE)))) {
+            input.readInt(); // The magic number, already checked
+
+            int schemaVersion = input.readInt();
+            if (schemaVersion < 1 || schemaVersion > SCHEMA_VERSION)
+                throw new IOException("Unsupported schema version " + schemaVersion + " in " + filepath);
+
+            try {
+                switch (input.readByte()) {
+                    case USERS:
+                        return readUsers(input);
+                    case EVENTS:
+                        return readEvents(input);
+                    case MESSAGES:
+                        return readMessages(input, schemaVersion);
+                    case ROOMS:
+                        return readRooms(input);
+                    case SERIALIZED_OBJECT:
+                        return new ObjectInputStream(input).readObject();
+                    default:
+                        throw new IOException("Unknown contents in " + filepath);
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Invalid contents in " + filepath, e);
+            }
+        }
+    }
+
+    /**
+     * Checks if a file starts with the magic number of this gateway's format, rather than being written by
+     * Java serialization.
+     *
+     * @param filepath The filepath to the file to check.
+     * @return true if the file was written in this gateway's format, false otherwise.
+     * @throws IOException - If an I/O error occurs while opening the file.
+     */
+    private boolean isBinaryFile(String filepath) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                decompressIfNeeded(new BufferedInputStream(new FileInputStream(filepath))))) {
+            return input.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Wraps a file stream in a buffered GZIP stream if the file starts with the GZIP magic number.
+     *
+     * @param file The buffered stream of the file, positioned at its start.
+     * @return a stream of the uncompressed file contents.
+     * @throws IOException - If an I/O error occurs while reading the file.
+     */
+    private InputStream decompressIfNeeded(InputStream file) throws IOException {
+        file.mark(2);
+        int first = file.read();
+        int second = file.read();
+        file.reset();
+
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            return new BufferedInputStream(new GZIPInputStream(file, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        return file;
+    }
+
+    /**
+     * Writes a use case to a file.
+     *
+     * @param filepath The file path to write to
+     * @param data The object to write to the file
+     * @throws IOException - If an I/O error occurs while opening the file.
+     */
+    @Override
+    public void saveToFile(String filepath, Object data) throws IOException {
+        write(new BufferedOutputStream(new FileOutputStream(filepath), BUFFER_SIZE), data);
+    }
+
+    /**
+     * Writes a use case into the bytes saveToFile would write to a file.
+     *
+     * @param data The object to write
+     * @return the written bytes
+     * @throws IOException - If an I/O error occurs while writing the object.
+     */
+    @Override
+    public byte[] toBytes(Object data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+        write(bytes, data);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a use case into a stream, and closes the stream.
+     *
+     * @param stream The stream to write to
+     * @param data The object to write
+     * @throws IOException - If an I/O error occurs while writing to the stream.
+     */
+    private void write(OutputStream stream, Object data) throws IOException {
+        try (OutputStream file = stream;
+             DataOutputStream output = new DataOutputStream(
+                     compressed ? new BufferedOutputStream(new GZIPOutputStream(file, BUFFER_SIZE), BUFFER_SIZE)
+                             : file)) {
+            output.writeInt(MAGIC);
+            output.writeInt(SCHEMA_VERSION);
+
+            if (data instanceof UserManager) {
+                output.writeByte(USERS);
+                writeUsers(output, (UserManager) data);
+            } else if (data instanceof EventManager) {
+                output.writeByte(EVENTS);
+                writeEvents(output, (EventManager) data);
+            } else if (data instanceof MessageManager) {
+                output.writeByte(MESSAGES);
+                writeMessages(output, (MessageManager) data);
+            } else if (data instanceof RoomManager) {
+                output.writeByte(ROOMS);
+                writeRooms(output, (RoomManager) data);
+            } else {
+                output.writeByte(SERIALIZED_OBJECT);
+                ObjectOutputStream objectOutput = new ObjectOutputStream(output);
+                objectOutput.writeObject(data);
+                objectOutput.flush();
+            }
+        }
+    }
+
+    private void writeUsers(DataOutputStream output, UserManager userManager) throws IOException {
+        Collection<UserAccount> users = userManager.getUserMap().values();
+        output.writeInt(users.size());
+        for (UserAccount user : users) {
+            writeString(output, user.getUserType());
+            writeString(output, user.getUserName());
+            writeString(output, user.getPassWord());
+            writeStringList(output, user.getRegisteredEvents());
+            writeStringList(output, user.getFriendList());
+            writeStringList(output, user.getFriendRequest());
+        }
+
+        ArrayList<Integer> invitationCodes = userManager.getInvitationCodes();
+        output.writeInt(invitationCodes.size());
+        for (int code : invitationCodes) {
+            output.writeInt(code);
+        }
+    }
+
+    private UserManager readUsers(DataInputStream input) throws IOException {
+        UserManager userManager = new UserManager();
+        int userCount = input.readInt();
+        for (int i = 0; i < userCount; i++) {
+            String type = readString(input);
+            String userName = readString(input);
+            userManager.createUser(userName, readString(input), type);
+
+            UserAccount user = userManager.getUserByName(userName);
+            for (String event : readStringList(input)) {
+                user.registerEvent(event);
+            }
+            for (String friend : readStringList(input)) {
+                user.addFriend(friend);
+            }
+            for (String request : readStringList(input)) {
+                user.addFriendRequest(request);
+            }
+        }
+
+        int codeCount = input.readInt();
+        ArrayList<Integer> invitationCodes = new ArrayList<>(codeCount);
+        for (int i = 0; i < codeCount; i++) {
+            invitationCodes.add(input.readInt());
+        }
+        userManager.setInvitationCodes(invitationCodes);
+        return userManager;
+    }
+
+    private void writeEvents(DataOutputStream output, EventManager eventManager) throws IOException {
+        ArrayList<Event> events = eventManager.getEventList();
+        output.writeInt(events.size());
+        for (Event event : events) {
+            writeString(output, event.getName());
+            writeStringList(output, event.getSpeaker());
+            writeTime(output, event.getTime());
+            output.writeInt(event.getRoomNum());
+            output.writeInt(event.getDuration());
+            output.writeInt(event.getCapacity());
+            writeStringList(output, event.getAttendees());
+        }
+    }
+
+    private EventManager readEvents(DataInputStream input) throws IOException {
+        int eventCount = input.readInt();
+        ArrayList<Event> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            String name = readString(input);
+            ArrayList<String> speakers = readStringList(input);
+            LocalDateTime time = readTime(input);
+            int room = input.readInt();
+            int duration = input.readInt();
+            int capacity = input.readInt();
+
+            Event event = new Event(name, speakers, time, room, duration, capacity);
+            for (String attendee : readStringList(input)) {
+                event.addAttendee(attendee);
+            }
+            events.add(event);
+        }
+
+        EventManager eventManager = new EventManager();
+        eventManager.setEventList(events);
+        return eventManager;
+    }
+
+    private void writeMessages(DataOutputStream output, MessageManager messageManager) throws IOException {
+        Collection<Message> systemMessages = messageManager.getSystemMessages().values();
+        Collection<Message> deletedMessages = messageManager.getDeletedMessages().values();
+        Collection<Broadcast> broadcasts = messageManager.getBroadcasts().values();
+
+        // Every username is written once, messages refer to it by its position in this table
+        LinkedHashMap<String, Integer> usernames = new LinkedHashMap<>();
+        for (Message m : systemMessages) {
+            usernames.putIfAbsent(m.getSender(), usernames.size());
+            usernames.putIfAbsent(m.getReceiver(), usernames.size());
+        }
+        for (Message m : deletedMessages) {
+            usernames.putIfAbsent(m.getSender(), usernames.size());
+            usernames.putIfAbsent(m.getReceiver(), usernames.size());
+        }
+        for (Broadcast b : broadcasts) {
+            usernames.putIfAbsent(b.getSender(), usernames.size());
+            for (int i = 0; i < b.getRecipientCount(); i++) {
+                usernames.putIfAbsent(b.getReceiver(i), usernames.size());
+            }
+        }
+
+        output.writeLong(messageManager.getVersion());
+        writeStringList(output, usernames.keySet());
+        writeMessageList(output, systemMessages, usernames);
+        writeMessageList(output, deletedMessages, usernames);
+        writeBroadcastList(output, broadcasts, usernames);
+    }
+
+    private MessageManager readMessages(DataInputStream input, int schemaVersion) throws IOException {
+        long version = input.readLong();
+        ArrayList<String> usernames = readStringList(input);
+        HashMap<UUID, Message> systemMessages = readMessageList(input, usernames, schemaVersion);
+        HashMap<UUID, Message> deletedMessages = readMessageList(input, usernames, schemaVersion);
+        HashMap<UUID, Broadcast> broadcasts = schemaVersion >= 3 ? readBroadcastList(input, usernames) :
+                new HashMap<>();
+
+        MessageManager messageManager = new MessageManager();
+        messageManager.setMessages(systemMessages, deletedMessages, broadcasts, version);
+        return messageManager;
+    }
+
+    private void writeMessageList(DataOutputStream output, Collection<Message> messages,
+                                  Map<String, Integer> usernames) throws IOException {
+        output.writeInt(messages.size());
+        for (Message m : messages) {
+            output.writeLong(m.getId().getMostSignificantBits());
+            output.writeLong(m.getId().getLeastSignificantBits());
+            output.writeInt(usernames.get(m.getSender()));
+            output.writeInt(usernames.get(m.getReceiver()));
+            writeString(output, m.getContent());
+            output.writeLong(m.getContentReference());
+            writeTime(output, m.getTime());
+
+            int flags = 0;
+            if (m.isReadStatus()) flags |= READ;
+            if (m.isArchivedBySender()) flags |= ARCHIVED_BY_SENDER;
+            if (m.isArchivedByReceiver()) flags |= ARCHIVED_BY_RECEIVER;
+            if (m.isDeletedBySender()) flags |= DELETED_BY_SENDER;
+            if (m.isDeletedByReceiver()) flags |= DELETED_BY_RECEIVER;
+            output.writeByte(flags);
+        }
+    }
+
+    private HashMap<UUID, Message> readMessageList(DataInputStream input, List<String> usernames,
+                                                   int schemaVersion) throws IOException {
+        int messageCount = input.readInt();
+        HashMap<UUID, Message> messages = new HashMap<>(messageCount * 4 / 3 + 1);
+        for (int i = 0; i < messageCount; i++) {
+            UUID id = new UUID(input.readLong(), input.readLong());
+            String sender = usernames.get(input.readInt());
+            String receiver = usernames.get(input.readInt());
+            String content = readString(input);
+            long contentReference = schemaVersion >= 2 ? input.readLong() : -1;
+            LocalDateTime time = readTime(input);
+            Message m = new Message(id, sender, receiver, content, time);
+            if (content == null && contentReference >= 0) {
+                m.moveContentToStore(contentReference);
+            }
+
+            // Deletion clears the archive flags, so it is restored first
+            int flags = input.readByte();
+            if ((flags & DELETED_BY_SENDER) != 0) m.markAsSenderDeleted();
+            if ((flags & DELETED_BY_RECEIVER) != 0) m.markAsReceiverDeleted();
+            if ((flags & ARCHIVED_BY_SENDER) != 0) m.markAsSenderArchive();
+            if ((flags & ARCHIVED_BY_RECEIVER) != 0) m.markAsReceiverArchive();
+            if ((flags & READ) != 0) m.markAsRead();
+            messages.put(id, m);
+        }
+        return messages;
+    }
+
+    private void writeBroadcastList(DataOutputStream output, Collection<Broadcast> broadcasts,
+                                    Map<String, Integer> usernames) throws IOException {
+        output.writeInt(broadcasts.size());
+        for (Broadcast b : broadcasts) {
+            output.writeLong(b.getId().getMostSignificantBits());
+            output.writeLong(b.getId().getLeastSignificantBits());
+            output.writeInt(usernames.get(b.getSender()));
+            writeString(output, b.getContent());
+            output.writeLong(b.getContentReference());
+            writeTime(output, b.getTime());
+
+            output.writeInt(b.getRecipientCount());
+            for (int i = 0; i < b.getRecipientCount(); i++) {
+                output.writeInt(usernames.get(b.getReceiver(i)));
+                int flags = 0;
+                if (b.isReadStatus(i)) flags |= READ;
+                if (b.isArchivedBySender(i)) flags |= ARCHIVED_BY_SENDER;
+                if (b.isArchivedByReceiver(i)) flags |= ARCHIVED_BY_RECEIVER;
+                if (b.isDeletedBySender(i)) flags |= DELETED_BY_SENDER;
+                if (b.isDeletedByReceiver(i)) flags |= DELETED_BY_RECEIVER;
+                output.writeByte(flags);
+            }
+        }
+    }
+
+    private HashMap<UUID, Broadcast> readBroadcastList(DataInputStream input, List<String> usernames)
+            throws IOException {
+        int broadcastCount = input.readInt();
+        HashMap<UUID, Broadcast> broadcasts = new HashMap<>(broadcastCount * 4 / 3 + 1);
+        for (int i = 0; i < broadcastCount; i++) {
+            UUID id = new UUID(input.readLong(), input.readLong());
+            String sender = usernames.get(input.readInt());
+            String content = readString(input);
+            long contentReference = input.readLong();
+            LocalDateTime time = readTime(input);
+
+            int recipientCount = input.readInt();
+            String[] receivers = new String[recipientCount];
+            byte[] flags = new byte[recipientCount];
+            for (int j = 0; j < recipientCount; j++) {
+                receivers[j] = usernames.get(input.readInt());
+                flags[j] = input.readByte();
+            }
+
+            Broadcast b = new Broadcast(id, sender, receivers, content, time);
+            if (content == null && contentReference >= 0) {
+                b.moveContentToStore(contentReference);
+            }
+            // Deletion clears the archive flags, so it is restored first
+            for (int j = 0; j < recipientCount; j++) {
+                if ((flags[j] & DELETED_BY_SENDER) != 0) b.markAsSenderDeleted(j);
+                if ((flags[j] & DELETED_BY_RECEIVER) != 0) b.markAsReceiverDeleted(j);
+                if ((flags[j] & ARCHIVED_BY_SENDER) != 0) b.markAsSenderArchive(j);
+                if ((flags[j] & ARCHIVED_BY_RECEIVER) != 0) b.markAsReceiverArchive(j);
+                if ((flags[j] & READ) != 0) b.markAsRead(j);
+            }
+            broadcasts.put(id, b);
+        }
+        return broadcasts;
+    }
+
+    private void writeRooms(DataOutputStream output, RoomManager roomManager) throws IOException {
+        ArrayList<Integer> roomNumbers = roomManager.getRoomNumbers();
+        output.writeInt(roomNumbers.size());
+        for (int roomNumber : roomNumbers) {
+            output.writeInt(roomNumber);
+            output.writeInt(roomManager.getRoomCapacity(roomNumber));
+            output.writeInt(roomManager.getSquareFootage(roomNumber));
+            output.writeInt(roomManager.getScreens(roomNumber));
+
+            int features = 0;
+            if (roomManager.roomHasSoundSystem(roomNumber)) features |= SOUND_SYSTEM;
+            if (roomManager.roomHasStage(roomNumber)) features |= STAGE;
+            if (roomManager.roomIsAccessible(roomNumber)) features |= ACCESSIBLE;
+            if (roomManager.roomHasWifi(roomNumber)) features |= WIFI;
+            output.writeByte(features);
+
+            writeString(output, roomManager.getSpecialFeatures(roomNumber));
+            writeString(output, roomManager.getDescription(roomNumber));
+
+            TreeMap<LocalDateTime, LocalDateTime> schedule = roomManager.getRoomSchedule(roomNumber);
+            output.writeInt(schedule.size());
+            for (Map.Entry<LocalDateTime, LocalDateTime> timeInterval : schedule.entrySet()) {
+                writeTime(output, timeInterval.getKey());
+                writeTime(output, timeInterval.getValue());
+            }
+        }
+    }
+
+    private RoomManager readRooms(DataInputStream input) throws IOException {
+        RoomManager roomManager = new RoomManager();
+        int roomCount = input.readInt();
+        for (int i = 0; i < roomCount; i++) {
+            int roomNumber = input.readInt();
+            RoomBuilder roomBuilder = new RoomBuilder()
+                    .roomNumber(roomNumber)
+                    .capacity(input.readInt())
+                    .squareFootage(input.readInt())
+                    .screens(input.readInt());
+
+            int features = input.readByte();
+            roomBuilder.soundSystem((features & SOUND_SYSTEM) != 0)
+                    .stage((features & STAGE) != 0)
+                    .accessible((features & ACCESSIBLE) != 0)
+                    .wifi((features & WIFI) != 0)
+                    .specialFeatures(readString(input))
+                    .description(readString(input));
+            roomManager.addRoom(roomBuilder);
+
+            int intervalCount = input.readInt();
+            for (int j = 0; j < intervalCount; j++) {
+                LocalDateTime startTime = readTime(input);
+                roomManager.addScheduleTime(roomNumber, startTime, readTime(input));
+            }
+        }
+        return roomManager;
+    }
+
+    private static void writeTime(DataOutputStream output, LocalDateTime time) throws IOException {
+        output.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        output.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInputStream input) throws IOException {
+        long epochSecond = input.readLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, input.readInt(), ZoneOffset.UTC);
+    }
+
+    // Strings are written as their UTF-8 length followed by their UTF-8 bytes, or -1 for null
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        if (string == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Lists of strings are written as their size followed by their elements, null lists are written as empty
+    private static void writeStringList(DataOutputStream output, Collection<String> strings) throws IOException {
+        if (strings == null) {
+            output.writeInt(0);
+            return;
+        }
+        output.writeInt(strings.size());
+        for (String string : strings) {
+            writeString(output, string);
+        }
+    }
+
+    private static ArrayList<String> readStringList(DataInputStream input) throws IOException {
+        int size = input.readInt();
+        ArrayList<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(input));
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,366 @@
+package Gateway;
+
+import UseCase.Journaled;
+import UseCase.Versioned;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides methods for saving Objects to file and reading Objects from files, where Journaled objects are
+ * written as a snapshot followed by a journal of changes.
+ *
+ * Snapshots are read and written through another ReadWrite, by default a ReadWriteGateway. Every save of a
+ * Journaled object after its snapshot only appends the changes made since the previous save to a journal file next
+ * to the snapshot. Once the journal grows past a given size, the next save writes a new snapshot and discards the
+ * journal. Reading replays the journal on top of the snapshot.
+ *
+ * Objects that are not Journaled are always written as a full snapshot. Versioned objects are not written at all
+ * if the file already holds them at their current version.
+ *
+ * Different files can be read and written from several threads at the same time.
+ *
+ * A save can also be split in two with prepareCheckpoint: the object is copied right away and the copy is written
+ * to disk later, for example on a background thread, while the object keeps changing. A copy for a snapshot is made
+ * by encoding the object with the snapshot gateway, so writing it later only has to put the bytes in the file.
+ */
+public class JournalReadWriteGateway implements ReadWrite {
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long DEFAULT_MAX_JOURNAL_BYTES = 8L * 1024 * 1024;
+
+    private final ReadWrite snapshotGateway;
+    private final long maxJournalBytes;
+
+    // Maps file paths to the object whose state their snapshot and journal hold up to its last save.
+    // Only that object can be appended to the journal of the path, all others need a new snapshot first.
+    private final Map<String, Object> journalOwners = new ConcurrentHashMap<>();
+
+    // Maps file paths to the version of their owner that they hold.
+    private final Map<String, Long> savedVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a JournalReadWriteGateway that compacts journals larger than 8 MB into a new snapshot.
+     */
+    public JournalReadWriteGateway() {
+        this(new ReadWriteGateway(), DEFAULT_MAX_JOURNAL_BYTES);
+    }
+
+    /**
+     * Creates a JournalReadWriteGateway.
+     *
+     * @param snapshotGateway The gateway used to read and write snapshots.
+     * @param maxJournalBytes The journal size in bytes after which the next save writes a new snapshot.
+     */
+    public JournalReadWriteGateway(ReadWrite snapshotGateway, long maxJournalBytes) {
+        this.snapshotGateway = snapshotGateway;
+        this.maxJournalBytes = maxJournalBytes;
+    }
+
+    /**
+     * Deserializes data from a snapshot file into an Object, then replays the journal of that file on top of it
+     * if the Object is Journaled. A journal whose last batch was cut off is replayed up to that batch.
+     *
+     * @param filepath The filepath to the snapshot file to read from.
+     * @return Object containing deserialized data.
+     * @throws ClassNotFoundException - If class of read Object does not exist.
+     * @throws IOException - If an I/O error occurs while opening the file.
+     */
+    @Override
+    public Object readFromFile(String filepath) throws ClassNotFoundException, IOException {
+        journalOwners.remove(filepath);
+        Object data = snapshotGateway.readFromFile(filepath);
+
+        boolean journalComplete = true;
+        if (data instanceof Journaled) {
+            journalComplete = replayJournal(journalPath(filepath), (Journaled) data);
+        }
+        if (journalComplete && data != null)
+            setOwner(filepath, data, versionOf(data));
+        return data;
+    }
+
+    /**
+     * Saves an Object to a file. If the same Journaled Object was read from or last saved to the same file,
+     * only its changes since then are appended to the journal. Otherwise a new snapshot is written.
+     * Nothing is written if the Object is Versioned and has not changed since it was read from or saved to the file.
+     *
+     * @param filepath The file path to write to
+     * @param data The object to save to the file
+     * @throws IOException - If an I/O error occurs while opening the file.
+     */
+    @Override
+    public void saveToFile(String filepath, Object data) throws IOException {
+        if (isUnchanged(filepath, data))
+            return;
+        if (!(data instanceof Journaled)) {
+            writeSnapshot(filepath, data);
+            return;
+        }
+
+        Journaled journaled = (Journaled) data;
+        ArrayList<Serializable> records = journaled.takeJournalRecords();
+        File journal = new File(journalPath(filepath));
+
+        if (journalOwners.get(filepath) != data || journal.length() >= maxJournalBytes) {
+            writeSnapshot(filepath, data);
+            return;
+        }
+        if (records.isEmpty())
+            return;
+
+        try {
+            appendToJournal(journal, journaled.getVersion(), records);
+            savedVersions.put(filepath, journaled.getVersion());
+        } catch (IOException e) {
+            // The records are lost from the journal, so only a new snapshot can bring the file up to date.
+            journalOwners.remove(filepath);
+            throw e;
+        }
+    }
+
+    /**
+     * Serializes an Object into the bytes of a snapshot, as written by the snapshot gateway.
+     *
+     * @param data The object to serialize
+     * @return the bytes of the snapshot
+     * @throws IOException - If an I/O error occurs while serializing the object.
+     */
+    @Override
+    public byte[] toBytes(Object data) throws IOException {
+        return snapshotGateway.toBytes(data);
+    }
+
+    /**
+     * Copies what needs to be saved of an Object so that it can be written to a file later, while the Object keeps
+     * changing. If the same Journaled Object was read from or last saved to the same file, only its changes since
+     * then are copied and later appended to the journal. Otherwise the whole Object is encoded as a snapshot, which
+     * is later written to the file as it is. Nothing is copied if the Object is Versioned and has not changed since
+     * it was read from or saved to the file.
+     *
+     * Checkpoints of the same file must be written in the order they were prepared, and only after the previous
+     * one has been written.
+     *
+     * @param filepath The file path to write to
+     * @param data The object to save to the file. It must be Serializable.
+     * @return the Checkpoint that writes the copy to the file.
+     * @throws IOException - If the Object could not be copied.
+     */
+    public Checkpoint prepareCheckpoint(String filepath, Object data) throws IOException {
+        if (isUnchanged(filepath, data))
+            return () -> { };
+
+        long version = versionOf(data);
+        ArrayList<Serializable> records = new ArrayList<>();
+        if (data instanceof Journaled)
+            records = ((Journaled) data).takeJournalRecords();
+        File journal = new File(journalPath(filepath));
+
+        if (!(data instanceof Journaled) || journalOwners.get(filepath) != data ||
+                journal.length() >= maxJournalBytes) {
+            byte[] snapshot = snapshotGateway.toBytes(data);
+            return () -> {
+                journalOwners.remove(filepath);
+                Path temp = Paths.get(filepath + TEMP_SUFFIX);
+                Files.write(temp, snapshot);
+                replaceSnapshot(filepath, temp);
+                // The snapshot holds the state of data when it was copied, so data owns the file from now on.
+                setOwner(filepath, data, version);
+            };
+        }
+        if (records.isEmpty())
+            return () -> { };
+
+        byte[] batch;
+        try {
+            batch = serialize(new ArrayList<>(records));
+        } catch (IOException e) {
+            // The records are lost from the journal, so only a new snapshot can bring the file up to date.
+            journalOwners.remove(filepath);
+            throw e;
+        }
+        return () -> {
+            try {
+                appendToJournal(journal, version, batch);
+                savedVersions.put(filepath, version);
+            } catch (IOException e) {
+                journalOwners.remove(filepath);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Writes a full snapshot of an Object to a temporary file and moves it over the given file, then deletes the
+     * journal of the given file.
+     *
+     * @param filepath The file path to write to
+     * @param data The object to serialize to the file
+     * @throws IOException - If an I/O error occurs while writing or moving the file.
+     */
+    private void writeSnapshot(String filepath, Object data) throws IOException {
+        journalOwners.remove(filepath);
+        Path temp = Paths.get(filepath + TEMP_SUFFIX);
+
+        snapshotGateway.saveToFile(temp.toString(), data);
+        replaceSnapshot(filepath, temp);
+        setOwner(filepath, data, versionOf(data));
+    }
+
+    /**
+     * Moves a new snapshot written to a temporary file over the given file, then deletes the journal of the given
+     * file.
+     *
+     * @param filepath The file path of the snapshot
+     * @param temp The temporary file holding the new snapshot
+     * @throws IOException - If an I/O error occurs while moving the file.
+     */
+    private void replaceSnapshot(String filepath, Path temp) throws IOException {
+        Path target = Paths.get(filepath);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Leftover journal batches are at most as new as the snapshot, so they are skipped if this fails.
+        Files.deleteIfExists(Paths.get(journalPath(filepath)));
+    }
+
+    /**
+     * Records that a file holds the given Object at the given version.
+     *
+     * @param filepath The file path
+     * @param data The object held by the file
+     * @param version The version of the object held by the file, or -1 if it is not Versioned
+     */
+    private void setOwner(String filepath, Object data, long version) {
+        journalOwners.put(filepath, data);
+        savedVersions.put(filepath, version);
+    }
+
+    /**
+     * Checks whether a file already holds an Object at its current version, so it does not need to be saved.
+     *
+     * @param filepath The file path
+     * @param data The object to save to the file
+     * @return true if data is Versioned and the file holds its current version, false otherwise.
+     */
+    private boolean isUnchanged(String filepath, Object data) {
+        if (!(data instanceof Versioned) || journalOwners.get(filepath) != data)
+            return false;
+        Long savedVersion = savedVersions.get(filepath);
+        return savedVersion != null && savedVersion == ((Versioned) data).getVersion();
+    }
+
+    private long versionOf(Object data) {
+        return data instanceof Versioned ? ((Versioned) data).getVersion() : -1;
+    }
+
+    /**
+     * Appends one batch of journal records to the end of a journal file and forces it to disk.
+     * A batch is made of the version of the data after the records, the length of the serialized records,
+     * and the serialized records.
+     *
+     * @param journal The journal file
+     * @param version The version of the data once the records are applied
+     * @param records The records to append
+     * @throws IOException - If an I/O error occurs while writing the file.
+     */
+    private void appendToJournal(File journal, long version, List<Serializable> records) throws IOException {
+        appendToJournal(journal, version, serialize(new ArrayList<>(records)));
+    }
+
+    /**
+     * Appends one batch of already serialized journal records to the end of a journal file and forces it to disk.
+     *
+     * @param journal The journal file
+     * @param version The version of the data once the records are applied
+     * @param batch The serialized list of records to append
+     * @throws IOException - If an I/O error occurs while writing the file.
+     */
+    private void appendToJournal(File journal, long version, byte[] batch) throws IOException {
+        try (FileOutputStream file = new FileOutputStream(journal, true);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file))) {
+            output.writeLong(version);
+            output.writeInt(batch.length);
+            output.write(batch);
+            output.flush();
+            file.getFD().sync();
+        }
+    }
+
+    /**
+     * Applies every batch of a journal file that is newer than the data to the data.
+     *
+     * @param journalPath The path of the journal file
+     * @param data The data read from the snapshot
+     * @return true if the journal was read to its end, false if its last batch was cut off.
+     * @throws ClassNotFoundException - If class of a journal record does not exist.
+     * @throws IOException - If an I/O error occurs while opening the file.
+     */
+    private boolean replayJournal(String journalPath, Journaled data) throws ClassNotFoundException, IOException {
+        File journal = new File(journalPath);
+        if (!journal.exists())
+            return true;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+            while (true) {
+                long version;
+                try {
+                    version = input.readLong();
+                } catch (EOFException e) {
+                    return true;
+                }
+
+                byte[] batch;
+                try {
+                    batch = new byte[input.readInt()];
+                    input.readFully(batch);
+                } catch (EOFException e) {
+                    return false;
+                }
+                if (version <= data.getVersion())
+                    continue;
+
+                ArrayList<?> records;
+                try (ObjectInputStream recordInput = new ObjectInputStream(new ByteArrayInputStream(batch))) {
+                    records = (ArrayList<?>) recordInput.readObject();
+                }
+                for (Object record : records) {
+                    data.applyJournalRecord(record, version);
+                }
+            }
+        }
+    }
+
+    private String journalPath(String filepath) {
+        return filepath + JOURNAL_SUFFIX;
+    }
+
+    private byte[] serialize(Object data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A copy of an Object prepared by prepareCheckpoint that can be written to its file.
+     */
+    public interface Checkpoint {
+        /**
+         * Writes the copy to its file.
+         *
+         * @throws IOException - If an I/O error occurs while writing the file.
+         */
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,324 @@
+package Gateway;
+
+import UseCase.MessageContentStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Stores message contents in memory-mapped files, so that they are paged in by the operating system only when
+ * they are read instead of taking up space on the Java heap.
+ *
+ * The store is made of two append-only files. The header file holds the number of stored contents and the end of
+ * the used content region, followed by one fixed-size header per content holding its offset and length. The
+ * content file holds the UTF-8 bytes of every content. The reference to a content is the position of its header.
+ * Both files are mapped in segments, and a content never crosses the end of a segment.
+ *
+ * Contents that no message refers to any more are dropped by compact, which copies the used contents to a second
+ * pair of files under the same references. The pair with the higher generation in its file header is the one in
+ * use, so a compaction that is interrupted before it is finished leaves the store as it was.
+ */
+public class MappedMessageContentStore implements MessageContentStore, Closeable {
+    private static final int MAGIC = 0x43534d43;
+    private static final int FILE_HEADER_SIZE = 24; // magic, generation, content count, end of the content region
+    private static final int HEADER_SIZE = 12; // content offset and length
+    private static final int HEADERS_PER_SEGMENT = 1 << 18;
+    private static final long HEADER_SEGMENT_SIZE = (long) HEADER_SIZE * HEADERS_PER_SEGMENT;
+    private static final long CONTENT_SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final String COMPACTED = ".compact"; // added to the file path of every other generation
+    private static final int UNFINISHED = -1; // generation of files that a compaction is still writing
+
+    private final String filepath; // file path the store files are named after
+    private final String files; // file path of the files in use, with or without COMPACTED
+    private final FileChannel headerChannel;
+    private final FileChannel contentChannel;
+    private final MappedByteBuffer fileHeader;
+    private final ArrayList<MappedByteBuffer> headerSegments = new ArrayList<>();
+    private final ArrayList<MappedByteBuffer> contentSegments = new ArrayList<>();
+
+    private long count; // number of stored contents
+    private long contentEnd; // offset just past the last stored content
+
+    /**
+     * Opens the store kept in the files filepath + ".idx" and filepath + ".dat", creating them if needed. If a
+     * compaction left a newer generation of the store in the files filepath + ".compact.idx" and
+     * filepath + ".compact.dat", those are opened instead, and the files of the other generation are deleted.
+     *
+     * @param filepath The file path the store files are named after.
+     * @throws IOException - If an I/O error occurs while opening the files, or they are not a store.
+     */
+    public MappedMessageContentStore(String filepath) throws IOException {
+        this(filepath, chooseFiles(filepath), false);
+    }
+
+    /**
+     * Opens the store kept in the given files, or creates it as the unfinished next generation of a compaction.
+     */
+    private MappedMessageContentStore(String filepath, String files, boolean isCompaction) throws IOException {
+        this.filepath = filepath;
+        this.files = files;
+        headerChannel = FileChannel.open(Paths.get(files + ".idx"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        contentChannel = FileChannel.open(Paths.get(files + ".dat"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean isNew = headerChannel.size() == 0;
+        fileHeader = headerChannel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_SIZE);
+        if (isNew) {
+            fileHeader.putInt(0, MAGIC);
+            fileHeader.putInt(4, isCompaction ? UNFINISHED : 0);
+            fileHeader.putLong(8, 0);
+            fileHeader.putLong(16, 0);
+        } else if (fileHeader.getInt(0) != MAGIC) {
+            close();
+            throw new IOException(files + ".idx is not a message content store");
+        }
+        count = fileHeader.getLong(8);
+        contentEnd = fileHeader.getLong(16);
+    }
+
+    /**
+     * Returns the file path of the newest finished generation of the store, and deletes the files of the other
+     * generation. Files that cannot be deleted now are deleted the next time the store is opened.
+     */
+    private static String chooseFiles(String filepath) {
+        String files = readGeneration(filepath + COMPACTED) > readGeneration(filepath) ? filepath + COMPACTED
+                : filepath;
+        deleteFiles(files.equals(filepath) ? filepath + COMPACTED : filepath);
+        return files;
+    }
+
+    /**
+     * @return the generation of the store kept in the given files, or UNFINISHED if they do not hold a finished
+     * store
+     */
+    private static int readGeneration(String files) {
+        ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(Paths.get(files + ".idx"), StandardOpenOption.READ)) {
+            while (fileHeader.hasRemaining() && channel.read(fileHeader) >= 0) {
+                // Keep reading until the whole file header was read, or the file ended
+            }
+        } catch (IOException e) {
+            return UNFINISHED;
+        }
+        if (fileHeader.hasRemaining() || fileHeader.getInt(0) != MAGIC)
+            return UNFINISHED;
+        return fileHeader.getInt(4);
+    }
+
+    private static boolean deleteFiles(String files) {
+        try {
+            Files.deleteIfExists(Paths.get(files + ".idx"));
+            Files.deleteIfExists(Paths.get(files + ".dat"));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends a content to the store.
+     *
+     * @param content The content of a message
+     * @return the reference to read the content back with
+     * @throws UncheckedIOException - If an I/O error occurs while growing the files.
+     * @throws IllegalArgumentException - If the content is larger than a content segment.
+     */
+    @Override
+    public long store(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > CONTENT_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Invalid input: content too large");
+        }
+
+        try {
+            long reference = count;
+            append(reference, bytes);
+            return reference;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a content after the last stored content, under a reference that is not below the content count.
+     */
+    private void append(long reference, byte[] bytes) throws IOException {
+        long offset = contentEnd;
+        if (offset / CONTENT_SEGMENT_SIZE != (offset + bytes.length - 1) / CONTENT_SEGMENT_SIZE) {
+            offset = (offset / CONTENT_SEGMENT_SIZE + 1) * CONTENT_SEGMENT_SIZE;
+        }
+
+        ByteBuffer contentSegment = contentSegment(offset).duplicate();
+        contentSegment.position((int) (offset % CONTENT_SEGMENT_SIZE));
+        contentSegment.put(bytes);
+        putHeader(reference, offset, bytes.length);
+
+        count = reference + 1;
+        contentEnd = offset + bytes.length;
+        fileHeader.putLong(8, count);
+        fileHeader.putLong(16, contentEnd);
+    }
+
+    private void putHeader(long reference, long offset, int length) throws IOException {
+        ByteBuffer header = headerSegment(reference);
+        int headerPosition = (int) (reference % HEADERS_PER_SEGMENT) * HEADER_SIZE;
+        header.putLong(headerPosition, offset);
+        header.putInt(headerPosition + 8, length);
+    }
+
+    /**
+     * Reads a content back from the store.
+     *
+     * @param reference A reference returned by store
+     * @return the content stored under the reference
+     * @throws UncheckedIOException - If an I/O error occurs while mapping the files.
+     * @throws IllegalArgumentException - If nothing is stored under the reference.
+     */
+    @Override
+    public String load(long reference) {
+        try {
+            return new String(loadBytes(reference), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] loadBytes(long reference) throws IOException {
+        ByteBuffer header = headerSegment(checkReference(reference));
+        int headerPosition = (int) (reference % HEADERS_PER_SEGMENT) * HEADER_SIZE;
+        long offset = header.getLong(headerPosition);
+        byte[] bytes = new byte[header.getInt(headerPosition + 8)];
+
+        ByteBuffer contentSegment = contentSegment(offset).duplicate();
+        contentSegment.position((int) (offset % CONTENT_SEGMENT_SIZE));
+        contentSegment.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return the reference, if a content is stored under it
+     * @throws IllegalArgumentException - If nothing is stored under the reference, or its content was dropped.
+     */
+    private long checkReference(long reference) throws IOException {
+        if (reference < 0 || reference >= count
+                || headerSegment(reference).getLong((int) (reference % HEADERS_PER_SEGMENT) * HEADER_SIZE) < 0) {
+            throw new IllegalArgumentException("Invalid input: unknown content reference " + reference);
+        }
+        return reference;
+    }
+
+    /**
+     * Drops every content that is not under one of the given references, if that frees at least half of the
+     * content file. The contents that are kept are copied to the files of the next generation of the store under
+     * the same references, so nothing that refers to them has to change. If the store was compacted, this store
+     * is closed and the returned store has to be used instead.
+     *
+     * @param usedReferences The references of all contents that are still used
+     * @return the compacted store, or this store if compacting it would not free enough space
+     * @throws IOException - If an I/O error occurs while writing the next generation. This store stays usable.
+     * @throws IllegalArgumentException - If nothing is stored under one of the given references.
+     */
+    public MappedMessageContentStore compact(long[] usedReferences) throws IOException {
+        long[] references = usedReferences.clone();
+        Arrays.sort(references);
+        long usedBytes = 0;
+        for (long reference : references) {
+            ByteBuffer header = headerSegment(checkReference(reference));
+            usedBytes += header.getInt((int) (reference % HEADERS_PER_SEGMENT) * HEADER_SIZE + 8);
+        }
+        String nextFiles = files.equals(filepath) ? filepath + COMPACTED : filepath;
+        if (usedBytes == contentEnd || usedBytes * 2 > contentEnd || !deleteFiles(nextFiles))
+            return this;
+
+        MappedMessageContentStore next = new MappedMessageContentStore(filepath, nextFiles, true);
+        try {
+            int i = 0;
+            for (long reference = 0; reference < count; reference++) {
+                while (i < references.length && references[i] < reference) {
+                    i++;
+                }
+                if (i < references.length && references[i] == reference)
+                    next.append(reference, loadBytes(reference));
+                else
+                    next.putHeader(reference, -1, 0);
+            }
+            next.count = count;
+            next.fileHeader.putLong(8, count);
+            next.force();
+            // Finishing the next generation is a single write, so that it is either in use or ignored entirely.
+            next.fileHeader.putInt(4, fileHeader.getInt(4) + 1);
+            next.fileHeader.force();
+        } catch (IOException | RuntimeException e) {
+            next.close();
+            deleteFiles(nextFiles);
+            throw e;
+        }
+        close();
+        deleteFiles(files);
+        return next;
+    }
+
+    /**
+     * Forces every change made to the store onto the disk.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : contentSegments) {
+            if (segment != null)
+                segment.force();
+        }
+        for (MappedByteBuffer segment : headerSegments) {
+            if (segment != null)
+                segment.force();
+        }
+        fileHeader.force();
+    }
+
+    /**
+     * Closes the store files. Contents can no longer be stored or loaded afterwards.
+     *
+     * @throws IOException - If an I/O error occurs while closing the files.
+     */
+    @Override
+    public void close() throws IOException {
+        headerChannel.close();
+        contentChannel.close();
+    }
+
+    private MappedByteBuffer headerSegment(long reference) throws IOException {
+        return segment(headerChannel, headerSegments, (int) (reference / HEADERS_PER_SEGMENT),
+                FILE_HEADER_SIZE, HEADER_SEGMENT_SIZE);
+    }
+
+    private MappedByteBuffer contentSegment(long offset) throws IOException {
+        return segment(contentChannel, contentSegments, (int) (offset / CONTENT_SEGMENT_SIZE),
+                0, CONTENT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Returns a segment of a file mapped into memory, mapping it first if it is not mapped yet.
+     * Mapping a segment past the end of the file grows the file.
+     */
+    private MappedByteBuffer segment(FileChannel channel, ArrayList<MappedByteBuffer> segments, int index,
+                                     long start, long segmentSize) throws IOException {
+        while (segments.size() <= index) {
+            segments.add(null);
+        }
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, start + index * segmentSize, segmentSize);
+            segments.set(index, segment);
+        }
+        return segment;
+    }
+}
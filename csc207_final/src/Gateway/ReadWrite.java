@@ -14,4 +14,7 @@ public interface ReadWrite {
     // Gets/accesses a container from a use case and serializes to the given file path
     void saveToFile(String writeFilepath, Object data) throws IOException;
 
+    // Serializes a container into the bytes saveToFile would write, without writing them to a file
+    byte[] toBytes(Object data) throws IOException;
+
 }
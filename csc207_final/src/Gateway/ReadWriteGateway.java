@@ -1,14 +1,45 @@
 package Gateway;
 
 import java.io.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Provides methods for serializing and deserializing data by saving Objects to
  * file and reading Objects from files.
  *
+ * All file access is buffered. The gateway can optionally compress the files it writes with GZIP (Deflate).
+ * Reading detects whether a file is compressed, so files written in either mode can always be read back.
+ *
  * @author Filip Jovanovic, Chaolin Wang
  */
 public class ReadWriteGateway implements ReadWrite {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final int bufferSize;
+    private final boolean compressed;
+
+    /**
+     * Creates a ReadWriteGateway that writes uncompressed files through a 64 KB buffer.
+     */
+    public ReadWriteGateway() {
+        this(DEFAULT_BUFFER_SIZE, false);
+    }
+
+    /**
+     * Creates a ReadWriteGateway.
+     *
+     * @param bufferSize The size in bytes of the buffers used to read and write files.
+     * @param compressed true if files written should be compressed with GZIP, false otherwise.
+     * @throws IllegalArgumentException - If bufferSize is not positive.
+     */
+    public ReadWriteGateway(int bufferSize, boolean compressed) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Invalid input: buffer size must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.compressed = compressed;
+    }
 
     /**
      * Deserializes data from a file into an Object.
@@ -21,9 +52,10 @@ public class ReadWriteGateway implements ReadWrite {
      */
     @Override
     public Object readFromFile(String filepath) throws ClassNotFoundException, IOException {
-        InputStream file = new FileInputStream(filepath);
-        ObjectInput input = new ObjectInputStream(file);
-        return input.readObject();
+        try (InputStream file = new BufferedInputStream(new FileInputStream(filepath), bufferSize);
+             ObjectInputStream input = new ObjectInputStream(decompressIfNeeded(file))) {
+            return input.readObject();
+        }
     }
 
     /**
@@ -36,14 +68,54 @@ public class ReadWriteGateway implements ReadWrite {
      */
     @Override
     public void saveToFile(String filepath, Object data) throws IOException {
-        OutputStream file = new FileOutputStream(filepath);
-        ObjectOutput output = new ObjectOutputStream(file);
+        write(new BufferedOutputStream(new FileOutputStream(filepath), bufferSize), data);
+    }
 
-        output.writeObject(data);
+    /**
+     * Serializes an Object into the bytes saveToFile would write to a file.
+     *
+     * @param data The object to serialize
+     * @return the serialized bytes
+     * @throws IOException - If an I/O error occurs while serializing the object.
+     */
+    @Override
+    public byte[] toBytes(Object data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(bytes, data);
+        return bytes.toByteArray();
+    }
 
-        output.close();
-        file.close();
+    /**
+     * Serializes an Object into a stream, and closes the stream.
+     *
+     * @param stream The stream to write to
+     * @param data The object to serialize
+     * @throws IOException - If an I/O error occurs while writing to the stream.
+     */
+    private void write(OutputStream stream, Object data) throws IOException {
+        try (OutputStream file = stream;
+             ObjectOutputStream output = new ObjectOutputStream(
+                     compressed ? new GZIPOutputStream(file, bufferSize) : file)) {
+            output.writeObject(data);
+        }
     }
 
+    /**
+     * Wraps a file stream in a GZIP stream if the file starts with the GZIP magic number.
+     *
+     * @param file The buffered stream of the file, positioned at its start.
+     * @return a stream of the uncompressed file contents.
+     * @throws IOException - If an I/O error occurs while reading the file.
+     */
+    private InputStream decompressIfNeeded(InputStream file) throws IOException {
+        file.mark(2);
+        int first = file.read();
+        int second = file.read();
+        file.reset();
 
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            return new GZIPInputStream(file, bufferSize);
+        }
+        return file;
+    }
 }
@@ -14,7 +14,29 @@ import java.util.UUID;
  * @author Wenying Wu, Yu Jin Kim
  */
 public class MessagePresenter {
+    private static final String VIEW_SINGLE_CONVERSATION_OPTIONS = "Options:\n" +
+            "0: Reply to this conversation\n" +
+            "1. Archive a single message\n" +
+            "2. Archive entire conversation\n" +
+            "3. Delete a single message (only from your inbox, unless you have VIP or Organizer status)\n" +
+            "4. Delete conversation (only from your inbox, unless you have VIP or Organizer status)\n" +
+            "5. Continue browsing conversations\n";
+    private static final String VIEW_SINGLE_CONVERSATION_PROMPT = VIEW_SINGLE_CONVERSATION_OPTIONS +
+            "Enter 0, 1, 2, 3, 4, 5, or anything else to return to the Message Menu: ";
+    private static final String VIEW_SINGLE_CONVERSATION_WITH_OLDER_PROMPT = VIEW_SINGLE_CONVERSATION_OPTIONS +
+            "6. Show older messages\n" +
+            "Enter 0, 1, 2, 3, 4, 5, 6, or anything else to return to the Message Menu: ";
+    private static final String ARCHIVE_OPTIONS = "Options: \n" +
+            "0: Unarchive this conversation\n" +
+            "1. Delete this conversation\n" +
+            "2. Continue browsing archived conversations\n" +
+            "Enter 0, 1, 2, or anything else to return to Message Menu:";
+    private static final String CONTENT_UNAVAILABLE = "(This message cannot be shown, because the file holding " +
+            "its content could not be opened.)";
+
     private final String username;
+    // Text of the screen being printed, reused between screens and printed at once by flush
+    private final StringBuilder screen = new StringBuilder();
 
     /**
      * Create MessagePresenter with given username.
@@ -25,43 +47,56 @@ public class MessagePresenter {
     }
 
     /**
-     * Generate string representation of a single message from given MessageManager and
-     * message ID.
+     * Appends a basic string representation of a single message.
      *
-     * @param messageManager - current messageManager
-     * @param messageID - key value of the wanted message in the hashmap
-     * @return a basic String representation of this message
-     */
-    public String getMessageText(MessageManager messageManager, UUID messageID){
-        String sender;
-        String receiver;
-        if (messageManager.isSender(messageID)){
-            sender = "you";
-            receiver = messageManager.getMessageReceiver(messageID);
+     * @param text - text to append to
+     * @param message - view of the message, made for the logged in user
+     * @return text, for chaining
+     */
+    private static StringBuilder appendMessageText(StringBuilder text, MessageManager.MessageView message){
+        if (message.isSender()){
+            text.append("you sent to ").append(message.getReceiver());
         } else {
-            sender = messageManager.getMessageSender(messageID);
-            receiver = "you";
+            text.append(message.getSender()).append(" sent to you");
         }
-        return sender + " sent to " + receiver + ":\n" + messageManager.getMessageContent(messageID) +
-                "\n           at " + messageManager.getMessageTime(messageID);
+        return appendContent(text.append(":\n"), message).append("\n           at ").append(message.getTime());
     }
 
     /**
-     * Generate string representation of single message that includes which message number it is out of all
-     * the messages in its conversation.
+     * Appends the content of a message, or an error if its content cannot be read.
      *
+     * @param text - text to append to
+     * @param message - view of the message
+     * @return text, for chaining
+     */
+    private static StringBuilder appendContent(StringBuilder text, MessageManager.MessageView message){
+        return text.append(message.isContentAvailable() ? message.getContent() : CONTENT_UNAVAILABLE);
+    }
+
+    /**
+     * Appends the string representation of a single message that includes which message number it is out of all
+     * the messages in its conversation.
      *
-     * @param messageManager - current messageManager
-     * @param messageID - key value of the wanted message in the hashmap
+     * @param text - text to append to
+     * @param message - view of the message, made for the logged in user
      * @param messageNumber - numerical location of message in its conversation
      * @param conversationLength - size of its conversation
-     * @return - a String representation of this message, contextualized by its numerical place in its
-     * conversation.
+     * @return text, for chaining
      */
-    public String getMessageTextWithMessageNumber(MessageManager messageManager, UUID messageID, int messageNumber,
-                                                  int conversationLength){
-        String messageText = getMessageText(messageManager, messageID);
-        return messageText + "\n           (" + messageNumber + " out of " + conversationLength + " messages)";
+    private static StringBuilder appendMessageTextWithMessageNumber(StringBuilder text,
+                                                                    MessageManager.MessageView message,
+                                                                    int messageNumber, int conversationLength){
+        return appendMessageText(text, message).append("\n           (").append(messageNumber).append(" out of ")
+                .append(conversationLength).append(" messages)");
+    }
+
+    /**
+     * Prints the screen built up so far with a single write, and empties it for the next screen.
+     */
+    private void flush(){
+        System.out.print(screen);
+        System.out.flush();
+        screen.setLength(0);
     }
 
     /**
@@ -122,23 +157,37 @@ public class MessagePresenter {
                 "Enter 0, 1, 2, 3, or 4: ");
     }
 
+    /**
+     * Prints how many unread messages the logged in user has, if any.
+     *
+     * @param unreadMessages - number of unread messages
+     * @param unreadConversations - number of users the unread messages are from
+     */
+    public void printUnreadCount(int unreadMessages, int unreadConversations){
+        if (unreadMessages > 0) {
+            System.out.println("You have " + unreadMessages + " unread messages from " + unreadConversations +
+                    " users.");
+        }
+    }
+
     /**
      * Print list of users that logged in user has messages with.
      *
      * @param messageManager - a MessageManager instance
      */
     public void viewConversations(MessageManager messageManager){
-        System.out.println("You have conversations with these users: ");
-        System.out.println(messageManager.getSenderConversations());
+        screen.append("You have conversations with these users: \n");
+        screen.append(messageManager.getSenderConversations()).append('\n');
         ArrayList<String> unread = messageManager.getSenderUnreadConversations();
-        System.out.println("You have unread messages from " + unread.size() + " users: ");
-        System.out.println(unread);
-        System.out.println("Options:\n" +
+        screen.append("You have unread messages from ").append(unread.size()).append(" users: \n");
+        screen.append(unread).append('\n');
+        screen.append("Options:\n" +
                 "Enter a username to see your message history \n" +
                 "1. Mark a conversation as read \n" +
                 "2. Mark a conversation as unread\n" +
                 "(Note: you can only mark a conversation as unread if you have received messages in it)\n" +
-                "Enter a username, 1, 2, or anything else to return to Message Menu:");
+                "Enter a username, 1, 2, or anything else to return to Message Menu:\n");
+        flush();
     }
 
     /**
@@ -147,85 +196,75 @@ public class MessagePresenter {
      * @param messageManager - a MessageManager instance
      */
     public void viewArchivedConversations(MessageManager messageManager){
-        System.out.println("You have archived conversations with these users: ");
-        System.out.println(messageManager.getSenderArchivedConversations());
-        System.out.println("Enter a username to see your message history \n" +
+        screen.append("You have archived conversations with these users: \n");
+        screen.append(messageManager.getSenderArchivedConversations()).append('\n');
+        screen.append("Enter a username to see your message history \n" +
                 "1. Delete all archived conversations \n" +
-                "Enter a username, 1, or anything else to return to Message Menu: ");
+                "Enter a username, 1, or anything else to return to Message Menu: \n");
+        flush();
     }
 
 
     /**
-     * Prints conversation with single user, marks the conversation as read.
+     * Appends one page of the conversation with single user, marks the messages of the page as read.
      *
      * @param messageManager - a MessageManager instance
      * @param userManager - an UserManager instance
      * @param recipientID - username of the user receiving the message
+     * @param page - message IDs of the page to append, sorted by time
      */
-    public void printSingleConversation(MessageManager messageManager, UserManager userManager, String recipientID){
+    private void appendSingleConversation(MessageManager messageManager, UserManager userManager,
+                                          String recipientID, ArrayList<UUID> page){
         String identity = userManager.getUserType(username);
-        System.out.println("Your conversation with " + identity + " " + recipientID + ": ");
-        ArrayList<UUID> singleConversation = messageManager.getSingleConversationByReceiver(recipientID);
-        int conversationLength = singleConversation.size();
-        System.out.println("(This conversation has " + conversationLength + " messages.)");
-        for (int i = 0; i < conversationLength; i++){
-            String messageText;
-            messageText = getMessageTextWithMessageNumber(messageManager, singleConversation.get(i),
-                    i+1, conversationLength);
-            System.out.println(messageText);
+        screen.append("Your conversation with ").append(identity).append(' ').append(recipientID).append(": \n");
+        int pageLength = page.size();
+        screen.append("(Showing ").append(pageLength).append(" messages of this conversation.)\n");
+        ArrayList<MessageManager.MessageView> messages = messageManager.getMessageViews(page);
+        for (int i = 0; i < pageLength; i++){
+            appendMessageTextWithMessageNumber(screen, messages.get(i), i+1, pageLength).append('\n');
         }
-        messageManager.markConversationAsRead(recipientID);
+        messageManager.markMessagesAsRead(page);
     }
 
-    public void printArchivedConversation(MessageManager messageManager, UserManager userManager, String recipientID){
+    /**
+     * Appends the archived conversation with single user.
+     *
+     * @param messageManager - a MessageManager instance
+     * @param userManager - an UserManager instance
+     * @param recipientID - username of the conversation partner
+     */
+    private void appendArchivedConversation(MessageManager messageManager, UserManager userManager,
+                                            String recipientID){
         String identity = userManager.getUserType(username);
-        System.out.println("Your archived conversation with " + identity + " " + recipientID + ": " );
+        screen.append("Your archived conversation with ").append(identity).append(' ').append(recipientID)
+                .append(": \n");
         ArrayList<UUID> singleConversation = messageManager.getArchivedConversationByReceiver(recipientID);
         int conversationLength = singleConversation.size();
-        System.out.println("(This conversation has " + conversationLength + " messages.)");
+        screen.append("(This conversation has ").append(conversationLength).append(" messages.)\n");
+        ArrayList<MessageManager.MessageView> messages = messageManager.getMessageViews(singleConversation);
         for (int i = 0; i < conversationLength; i++){
-            String messageText;
-            messageText = getMessageTextWithMessageNumber(messageManager, singleConversation.get(i),
-                    i+1, conversationLength);
-            System.out.println(messageText);
+            appendMessageTextWithMessageNumber(screen, messages.get(i), i+1, conversationLength).append('\n');
         }
     }
 
 
     /**
-     * Prints options for Attendees and Speakers to continue browsing, reply to conversation, delete or archive
-     * the conversation or individual messages, or return to Message Menu.
-     */
-    public void printViewSingleConversationPrompt(){
-        System.out.println("Options:\n" +
-                "0: Reply to this conversation\n" +
-                "1. Archive a single message\n" +
-                "2. Archive entire conversation\n" +
-                "3. Delete a single message (only from your inbox, unless you have VIP or Organizer status)\n" +
-                "4. Delete conversation (only from your inbox, unless you have VIP or Organizer status)\n" +
-                "5. Continue browsing conversations\n" +
-                "Enter 0, 1, 2, 3, 4, 5, or anything else to return to the Message Menu: ");
-    }
-
-    /**
-     * Calls method to print single conversation between Attendee or Speaker user and a given recipient.
+     * Calls method to print one page of single conversation between Attendee or Speaker user and a given recipient.
      * Calls method to print subsequent options of Attendees and Speakers.
      *
      * @param messageManager - a MessageManager instance
      * @param userManager - an UserManager instance
      * @param recipientID - username of the user receiving the message
+     * @param page - message IDs of the page to print, sorted by time
+     * @param hasOlderMessages - true if the conversation holds messages older than the page, so that the option to
+     *                         show them is printed
      */
-    public void viewSingleConversation(MessageManager messageManager, UserManager userManager, String recipientID) {
-        printSingleConversation(messageManager, userManager, recipientID);
-        printViewSingleConversationPrompt();
-    }
-
-    public void printArchiveOptions(){
-        System.out.println("Options: \n" +
-                "0: Unarchive this conversation\n" +
-                "1. Delete this conversation\n" +
-                "2. Continue browsing archived conversations\n" +
-                "Enter 0, 1, 2, or anything else to return to Message Menu:");
+    public void viewSingleConversation(MessageManager messageManager, UserManager userManager, String recipientID,
+                                       ArrayList<UUID> page, boolean hasOlderMessages) {
+        appendSingleConversation(messageManager, userManager, recipientID, page);
+        screen.append(hasOlderMessages ? VIEW_SINGLE_CONVERSATION_WITH_OLDER_PROMPT : VIEW_SINGLE_CONVERSATION_PROMPT)
+                .append('\n');
+        flush();
     }
 
     /**
@@ -238,8 +277,9 @@ public class MessagePresenter {
      */
     public void viewArchivedSingleConversation(MessageManager messageManager, UserManager userManager,
                                                String recipientID) {
-        printArchivedConversation(messageManager, userManager, recipientID);
-        printArchiveOptions();
+        appendArchivedConversation(messageManager, userManager, recipientID);
+        screen.append(ARCHIVE_OPTIONS).append('\n');
+        flush();
     }
 
     /**
@@ -365,7 +405,7 @@ public class MessagePresenter {
      */
     public void printAttendees(UserManager userManager){
         System.out.println("You can message the following Attendees:");
-        ArrayList<String> attendees = userManager.getAttendeeList();
+        ArrayList<String> attendees = new ArrayList<>(userManager.getAttendeeList());
         attendees.remove(username);
         System.out.println(attendees);
     }
@@ -376,7 +416,7 @@ public class MessagePresenter {
      */
     public void printVIPs(UserManager userManager){
         System.out.println("You can message the following VIP's:");
-        ArrayList<String> vips = userManager.getVIPList();
+        ArrayList<String> vips = new ArrayList<>(userManager.getVIPList());
         vips.remove(username);
         System.out.println(vips);
     }
@@ -387,11 +427,11 @@ public class MessagePresenter {
      */
     public void printAttendeesAndVIPs(UserManager userManager){
         System.out.println("You can send friend request the following Attendees:");
-        ArrayList<String> attendees = userManager.getAttendeeList();
+        ArrayList<String> attendees = new ArrayList<>(userManager.getAttendeeList());
         attendees.remove(username);
         System.out.println(attendees);
         System.out.println("You can send friend request to the following VIP's:");
-        ArrayList<String> vips = userManager.getVIPList();
+        ArrayList<String> vips = new ArrayList<>(userManager.getVIPList());
         vips.remove(username);
         System.out.println(vips);
     }
@@ -403,7 +443,7 @@ public class MessagePresenter {
      */
     public void printOrganizers(UserManager userManager){
         System.out.println("You can message the following Organizers:");
-        ArrayList<String> vips = userManager.getOrganizerList();
+        ArrayList<String> vips = new ArrayList<>(userManager.getOrganizerList());
         vips.remove(username);
         System.out.println(vips);
     }
@@ -686,13 +726,12 @@ public class MessagePresenter {
      */
     public void viewUserFullyDeletedMessage(MessageManager messageManager, String userID){
         ArrayList<UUID> messages = messageManager.getFullyDeletedMessagesByUser(userID);
-        for (UUID i: messages){
-            String messageContent = messageManager.getMessageSender(i) + " sent to "
-                    + messageManager.getMessageReceiver(i) + ":\n" + messageManager.getMessageContent(i) +
-                    "\n           at " + messageManager.getMessageTime(i);
-            System.out.println(messageContent);
+        for (MessageManager.MessageView i: messageManager.getMessageViews(messages)){
+            appendContent(screen.append(i.getSender()).append(" sent to ").append(i.getReceiver()).append(":\n"), i)
+                    .append("\n           at ").append(i.getTime()).append('\n');
         }
-        System.out.println("Enter 0 to continue browsing the Message Bin, or anything " +
-                "else to return to Message Menu.");
+        screen.append("Enter 0 to continue browsing the Message Bin, or anything " +
+                "else to return to Message Menu.\n");
+        flush();
     }
 }
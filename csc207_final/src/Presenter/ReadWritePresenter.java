@@ -14,6 +14,36 @@ public class ReadWritePresenter {
         System.out.println("Successfully read in data from the files.");
     }
 
+    /**
+     * Prints text indicating that a single file was read.
+     *
+     * @param filepath - The path of the file that was read.
+     * @param millis - The time in milliseconds it took to read the file.
+     */
+    public void printFileRead(String filepath, long millis) {
+        System.out.println("Read " + filepath + " in " + millis + " ms.");
+    }
+
+    /**
+     * Prints text indicating that a single file could not be read.
+     *
+     * @param filepath - The path of the file that could not be read.
+     */
+    public void printFileReadError(String filepath) {
+        System.out.println("Unable to read " + filepath + ".");
+    }
+
+    /**
+     * Prints text indicating how many files were read and how long reading them took in total.
+     *
+     * @param filesRead - The number of files that were read.
+     * @param filesTotal - The number of files that reading was attempted for.
+     * @param millis - The time in milliseconds it took to read all files.
+     */
+    public void printAllFilesRead(int filesRead, int filesTotal, long millis) {
+        System.out.println("Read " + filesRead + " of " + filesTotal + " files in " + millis + " ms.");
+    }
+
     /**
      * Prints text indicating that writing to files was successful.
      */
@@ -42,7 +72,7 @@ public class ReadWritePresenter {
     public void printReadErrorMenu() {
         System.out.println("Please select one of the following:\n" +
                 "1. Retry reading from files.\n" +
-                "2. Continue without reading.\n" +
+                "2. Continue without reading the files that could not be read.\n" +
                 "3. Exit the program.\n" +
                 "Enter 1, 2, or 3: ");
     }
@@ -4,6 +4,7 @@ import UseCase.EventManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * A presenter class that prints values that will be displayed in the UI
@@ -67,7 +68,7 @@ public class SchedulePresenter {
      * @param enteredSpeaker - the speaker name(s) that has been selected for
      *                       an event wanted to be create.
      */
-    public void displaySpeakerList(ArrayList<String> speakerList, LocalDateTime time,
+    public void displaySpeakerList(Collection<String> speakerList, LocalDateTime time,
                                    int duration, ArrayList<String> enteredSpeaker) {
         StringBuilder availableSpeakers = new StringBuilder("Available Speakers: ");
         StringBuilder unavailableSpeakers = new StringBuilder("Unavailable Speakers: ");
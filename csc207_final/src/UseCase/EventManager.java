@@ -2,10 +2,21 @@ package UseCase;
 
 import Entity.Event;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
 
 /**
  * This class stores a list of existing events, legal starting
@@ -13,9 +24,27 @@ import java.util.Objects;
  *
  * @author Kelly Le, Filip Jovanovic, An Yen
  */
-public class EventManager implements Serializable {
+public class EventManager implements Serializable, Versioned {
+    private static final long serialVersionUID = 3254797495582408774L; // Same as in events.ser files saved so far
 
+    // Events in time order. This is the saved form of the events, rebuilt from eventsByTime only when it is
+    // asked for after the events changed.
     private ArrayList<Event> eventList = new ArrayList<>();
+    private transient boolean eventListStale = false;
+
+    // Number of changes made since this manager was created or read in, not saved
+    private transient long version = 0;
+
+    // Indexes over the events, rebuilt after deserialization
+    private transient TreeMap<LocalDateTime, ArrayList<Event>> eventsByTime =
+            new TreeMap<>(); // time -> events at that time, in the order they were added
+    private transient HashMap<String, Event> eventsByName = new HashMap<>(); // exact name -> event
+    private transient HashMap<String, TreeMap<LocalDateTime, ArrayList<Event>>> eventsBySpeaker =
+            new HashMap<>(); // speaker -> time -> events given by the speaker at that time
+    private transient HashMap<String, HashMap<LocalDateTime, Event>> eventsByAttendee =
+            new HashMap<>(); // attendee -> time -> event the attendee signed up for at that time
+    private transient HashMap<String, Integer> foldedNameCounts =
+            new HashMap<>(); // lower case, trimmed name -> number of events with that name
 
     /**
      * Returns the starting time of this conference
@@ -62,9 +91,129 @@ public class EventManager implements Serializable {
      * @return event list
      */
     public ArrayList<Event> getEventList() {
+        if (eventListStale) {
+            ArrayList<Event> events = new ArrayList<>();
+            for (ArrayList<Event> eventsAtTime : eventsByTime.values()) {
+                events.addAll(eventsAtTime);
+            }
+            eventList = events;
+            eventListStale = false;
+        }
         return eventList;
     }
 
+    /**
+     * Sets the list of events.
+     *
+     * @param eventList - an arraylist of events, sorted by time
+     */
+    public void setEventList(ArrayList<Event> eventList) {
+        this.eventList = eventList;
+        rebuildIndexes();
+        markChanged();
+    }
+
+    /**
+     * Replaces the speaker and attendee names of all events with equal instances shared with the rest of the
+     * program, such as the ones stored by UserManager.
+     *
+     * @param intern - returns the shared instance of a username
+     */
+    public void internUsernames(UnaryOperator<String> intern) {
+        for (Event e : getEventList()) {
+            e.internUsernames(intern);
+        }
+        rebuildIndexes();
+    }
+
+    /**
+     * Adds an event to the conference by adding it to the indexes.
+     *
+     * @param event - the event to add
+     */
+    private void addToIndexes(Event event) {
+        eventsByTime.computeIfAbsent(event.getTime(), time -> new ArrayList<>()).add(event);
+        eventsByName.putIfAbsent(event.getName(), event);
+        for (String speaker : new HashSet<>(event.getSpeaker())) {
+            eventsBySpeaker.computeIfAbsent(speaker, name -> new TreeMap<>())
+                    .computeIfAbsent(event.getTime(), time -> new ArrayList<>()).add(event);
+        }
+        for (String attendee : event.getAttendees()) {
+            addToAttendeeIndex(attendee, event);
+        }
+        foldedNameCounts.merge(foldName(event.getName()), 1, Integer::sum);
+        eventListStale = true;
+    }
+
+    /**
+     * Removes an event from the conference by removing it from the indexes.
+     *
+     * @param event - the event to remove
+     */
+    private void removeFromIndexes(Event event) {
+        ArrayList<Event> eventsAtTime = eventsByTime.get(event.getTime());
+        if (eventsAtTime != null && eventsAtTime.remove(event) && eventsAtTime.isEmpty()) {
+            eventsByTime.remove(event.getTime());
+        }
+        eventsByName.remove(event.getName(), event);
+        for (String speaker : new HashSet<>(event.getSpeaker())) {
+            TreeMap<LocalDateTime, ArrayList<Event>> speakerEvents = eventsBySpeaker.get(speaker);
+            if (speakerEvents == null)
+                continue;
+            ArrayList<Event> speakerEventsAtTime = speakerEvents.get(event.getTime());
+            if (speakerEventsAtTime != null && speakerEventsAtTime.remove(event) && speakerEventsAtTime.isEmpty())
+                speakerEvents.remove(event.getTime());
+            if (speakerEvents.isEmpty())
+                eventsBySpeaker.remove(speaker);
+        }
+        for (String attendee : event.getAttendees()) {
+            removeFromAttendeeIndex(attendee, event);
+        }
+        foldedNameCounts.computeIfPresent(foldName(event.getName()), (name, count) -> count == 1 ? null : count - 1);
+        eventListStale = true;
+    }
+
+    /**
+     * Rebuilds the indexes from eventList.
+     */
+    private void rebuildIndexes() {
+        eventsByTime = new TreeMap<>();
+        eventsByName = new HashMap<>();
+        eventsBySpeaker = new HashMap<>();
+        eventsByAttendee = new HashMap<>();
+        foldedNameCounts = new HashMap<>();
+        if (eventList != null) {
+            for (Event e : getEventList()) {
+                addToIndexes(e);
+            }
+        }
+        eventListStale = true;
+    }
+
+    private void addToAttendeeIndex(String attendee, Event event) {
+        eventsByAttendee.computeIfAbsent(attendee, name -> new HashMap<>()).putIfAbsent(event.getTime(), event);
+    }
+
+    private void removeFromAttendeeIndex(String attendee, Event event) {
+        HashMap<LocalDateTime, Event> attendedEvents = eventsByAttendee.get(attendee);
+        if (attendedEvents != null && attendedEvents.remove(event.getTime(), event) && attendedEvents.isEmpty())
+            eventsByAttendee.remove(attendee);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildIndexes();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getEventList();
+        out.defaultWriteObject();
+    }
+
+    private String foldName(String name) {
+        return name.toLowerCase().trim();
+    }
+
     /**
      * Returns an event that is created.
      *
@@ -89,16 +238,7 @@ public class EventManager implements Serializable {
      * @return true if the event name exists
      */
     public boolean getEvent(String name){
-        if (this.getEventList() == null || this.getEventList().isEmpty()){
-            return false;
-        }
-
-        for (Event e: this.getEventList()) {
-            if (e.getName().toLowerCase().trim().equals(name.toLowerCase().trim())){
-                return true;
-            }
-        }
-        return false;
+        return foldedNameCounts.containsKey(foldName(name));
     }
 
     /**
@@ -108,18 +248,13 @@ public class EventManager implements Serializable {
      * @return the Event instance with the corresponding event name
      */
     private Event findEventByName(String name){
-        for (Event e: eventList){
-            if(e.getName().equals(name)){
-                return e;
-            }
-        }
-        return null;
+        return eventsByName.get(name);
     }
 
     /**
      * Creates an event and is added to the conference.
-     * Passes silently if event was not able to be made.
-     * Checks if the speaker gives another talk at the same time and if the event name already exists.
+     * The event is not made if its name already exists, or if one of its speakers gives another talk at the same
+     * time. Events without speakers never conflict with each other.
      *
      * @param name - the name of this event
      * @param speaker - the name(s) of the speaker(s)
@@ -127,35 +262,24 @@ public class EventManager implements Serializable {
      * @param room - the occurring room of this event
      * @param duration - the duration of this event
      * @param capacity - the capacity of this event
+     * @return true if the event was made, false otherwise
      */
-    public void addEvent(String name, ArrayList<String> speaker,
-                         LocalDateTime time, int room, int duration, int capacity) {
-        Event newEvent = createNewEvent(name, speaker, time, room, duration, capacity);
-        if(eventList == null || eventList.isEmpty()) {
-            this.eventList = new ArrayList<>();
-            this.eventList.add(newEvent);
-        }
-        for (Event e : eventList) {
-            if ((e.getTime() == time && e.getSpeaker().equals(speaker)) || e.getName().equals(name)) {
-                return;
-            }
+    public boolean addEvent(String name, ArrayList<String> speaker,
+                            LocalDateTime time, int room, int duration, int capacity) {
+        if (eventsByName.containsKey(name)) {
+            return false;
         }
-        ArrayList<Event> sortedEvents = new ArrayList<>();
-        boolean Added = false;
-        for (Event e : eventList) {
-            if (e.getTime().isAfter(newEvent.getTime()) && !Added) {
-                sortedEvents.add(newEvent);
-                sortedEvents.add(e);
-                Added = true;
-            } else {
-                sortedEvents.add(e);
+        ArrayList<Event> eventsAtTime = eventsByTime.get(time);
+        if (eventsAtTime != null) {
+            for (Event e : eventsAtTime) {
+                if (!Collections.disjoint(e.getSpeaker(), speaker)) {
+                    return false;
+                }
             }
         }
-        if (!Added){
-            sortedEvents.add(newEvent);
-        }
-        this.eventList = sortedEvents;
-
+        addToIndexes(createNewEvent(name, speaker, time, room, duration, capacity));
+        markChanged();
+        return true;
     }
 
     /**
@@ -180,14 +304,9 @@ public class EventManager implements Serializable {
         if (event.getCapacity() == (event.getAttendees().size())) {
             return false;
         }
-        for (Event e: eventList){
-            if(event.getTime().equals(e.getTime())) {
-                if(e.getAttendees().contains(username)){
-                    return false;
-                }
-            }
-        }
-        return true;
+        // The user cannot attend two events at the same time, including this event itself
+        HashMap<LocalDateTime, Event> attendedEvents = eventsByAttendee.get(username);
+        return attendedEvents == null || !attendedEvents.containsKey(event.getTime());
     }
 
     /**
@@ -204,6 +323,8 @@ public class EventManager implements Serializable {
         if (canAddUserToEvent(username, eventName)){
             assert event != null;
             event.addAttendee(username);
+            addToAttendeeIndex(username, event);
+            markChanged();
             return true;
         }
         return false;
@@ -219,12 +340,11 @@ public class EventManager implements Serializable {
      * @return true if this user is successfully deleted from the event, otherwise false.
      */
     public boolean deleteUserFromEvent(String username, String eventName){
-        for (Event e: this.eventList){
-            if (e.getName().equals(eventName)) {
-                if (e.getAttendees().contains(username)) {
-                    return e.getAttendees().remove(username);
-                }
-            }
+        Event e = findEventByName(eventName);
+        if (e != null && e.removeAttendee(username)) {
+            removeFromAttendeeIndex(username, e);
+            markChanged();
+            return true;
         }
         return false;
     }
@@ -271,36 +391,62 @@ public class EventManager implements Serializable {
      *
      * @return a list of available Speakers
      */
-    public ArrayList<String> getAvailableSpeakers(ArrayList<String> speakerList, LocalDateTime time, int duration) {
+    public ArrayList<String> getAvailableSpeakers(Collection<String> speakerList, LocalDateTime time, int duration) {
         ArrayList<String> availableList = new ArrayList<>();
-        ArrayList<String> unavailableList = new ArrayList<>();
-        if (this.eventList != null) {
-            for (Event e : this.eventList) {
-                if(hasTimeConflict(e, time, duration)){
-                    unavailableList.addAll(e.getSpeaker());
-                }
-            }
-        }
-
+        LocalDateTime startOfDay = time.toLocalDate().atStartOfDay();
         for (String s : speakerList) {
-            if (!unavailableList.contains(s)) {
+            if (isSpeakerAvailable(s, startOfDay, time, duration)) {
                 availableList.add(s);
             }
         }
         return availableList;
     }
 
+    /**
+     * Returns true if a speaker gives no event that has a time conflict with the given time and duration.
+     * Only the events the speaker gives on the same day are checked, since events on other days never conflict.
+     *
+     * @param speaker - the name of the speaker
+     * @param startOfDay - the start of the day of the given time
+     * @param time - the chosen time
+     * @param duration - the duration time in hours of an event
+     *
+     * @return true if the speaker is available, false otherwise
+     */
+    private boolean isSpeakerAvailable(String speaker, LocalDateTime startOfDay, LocalDateTime time, int duration) {
+        TreeMap<LocalDateTime, ArrayList<Event>> speakerEvents = eventsBySpeaker.get(speaker);
+        if (speakerEvents == null) {
+            return true;
+        }
+        LocalDateTime endOfDay = startOfDay.plusDays(1);
+        Map.Entry<LocalDateTime, ArrayList<Event>> eventsAtTime = speakerEvents.ceilingEntry(startOfDay);
+        while (eventsAtTime != null && eventsAtTime.getKey().isBefore(endOfDay)) {
+            for (Event e : eventsAtTime.getValue()) {
+                if (hasTimeConflict(e, time, duration)) {
+                    return false;
+                }
+            }
+            eventsAtTime = speakerEvents.higherEntry(eventsAtTime.getKey());
+        }
+        return true;
+    }
+
     /**
      * Remove the past events from the event list.
      */
     public void removePastEvents(){
-        ArrayList<Event> updatedEventList = new ArrayList<>();
-        for (Event e: this.eventList){
-            if (e.getTime().compareTo(LocalDateTime.now()) > 0){
-                updatedEventList.add(e);
-            }
+        NavigableMap<LocalDateTime, ArrayList<Event>> pastEvents = eventsByTime.headMap(LocalDateTime.now(), true);
+        if (pastEvents.isEmpty()) {
+            return;
         }
-        this.eventList = updatedEventList;
+        ArrayList<Event> removedEvents = new ArrayList<>();
+        for (ArrayList<Event> eventsAtTime : pastEvents.values()) {
+            removedEvents.addAll(eventsAtTime);
+        }
+        for (Event e : removedEvents) {
+            removeFromIndexes(e);
+        }
+        markChanged();
     }
 
     /**
@@ -345,7 +491,7 @@ public class EventManager implements Serializable {
      */
     public ArrayList<Event> getRegisteredEvents(ArrayList<String> registeredEventNames){
         ArrayList<Event> registeredEvents = new ArrayList<>();
-        for (Event e : eventList) {
+        for (Event e : getEventList()) {
             if (registeredEventNames.contains(e.getName())) {
                 registeredEvents.add(e);
             }
@@ -361,10 +507,8 @@ public class EventManager implements Serializable {
      */
     public ArrayList<String> getEventListBySpeaker(String username) {
         ArrayList<String> events = new ArrayList<>();
-        for (Event e: eventList) {
-            if (e.getSpeaker().contains(username)) {
-                events.add(e.getName());
-            }
+        for (Event e: getEventBySpeaker(username)) {
+            events.add(e.getName());
         }
         return events;
     }
@@ -376,13 +520,11 @@ public class EventManager implements Serializable {
      * @return an ArrayList of String that contains usernames of users attending the Event
      */
     public ArrayList<String> getEventAttendees(String eventName) {
-        ArrayList<String> users = new ArrayList<>();
-        for (Event e : eventList) {
-            if (e.getName().equals(eventName)) {
-                users = e.getAttendees();
-            }
+        Event e = findEventByName(eventName);
+        if (e == null) {
+            return new ArrayList<>();
         }
-        return users;
+        return new ArrayList<>(e.getAttendees());
     }
 
     /**
@@ -394,12 +536,9 @@ public class EventManager implements Serializable {
      */
     public ArrayList<Event> getEventByDate (LocalDateTime date){
         ArrayList<Event> sameDayEvents = new ArrayList<>();
-        for (Event e: eventList){
-            if(e.getTime().getYear() == date.getYear()
-                    && e.getTime().getMonthValue() == date.getMonthValue()
-                    && e.getTime().getDayOfMonth() == date.getDayOfMonth()){
-                sameDayEvents.add(e);
-            }
+        LocalDateTime startOfDay = date.toLocalDate().atStartOfDay();
+        for (ArrayList<Event> eventsAtTime : eventsByTime.subMap(startOfDay, startOfDay.plusDays(1)).values()){
+            sameDayEvents.addAll(eventsAtTime);
         }
         return sameDayEvents;
     }
@@ -412,9 +551,10 @@ public class EventManager implements Serializable {
      */
     public ArrayList<Event> getEventBySpeaker(String speakerName){
         ArrayList<Event> sameSpeakerEvents = new ArrayList<>();
-        for (Event e: eventList){
-            if (e.getSpeaker().contains(speakerName)){
-                sameSpeakerEvents.add(e);
+        TreeMap<LocalDateTime, ArrayList<Event>> speakerEvents = eventsBySpeaker.get(speakerName);
+        if (speakerEvents != null) {
+            for (ArrayList<Event> eventsAtTime : speakerEvents.values()) {
+                sameSpeakerEvents.addAll(eventsAtTime);
             }
         }
         return sameSpeakerEvents;
@@ -429,7 +569,7 @@ public class EventManager implements Serializable {
      */
     public ArrayList<Event> getEventByTime(String time){
         ArrayList<Event> eventsAtTime = new ArrayList<>();
-        for(Event e: eventList){
+        for(Event e: getEventList()){
             String eventTime;
             int hour = e.getTime().getHour();
             if(hour < 10){
@@ -452,12 +592,13 @@ public class EventManager implements Serializable {
      * @return true if the Event was removed from the event list, false otherwise
      */
     public boolean deleteConferenceEvent(String eventName){
-        for (Event e: this.eventList){
-            if (e.getName().equals(eventName)) {
-                return this.eventList.remove(e);
-            }
+        Event e = findEventByName(eventName);
+        if (e == null) {
+            return false;
         }
-        return false;
+        removeFromIndexes(e);
+        markChanged();
+        return true;
     }
 
     /**
@@ -491,8 +632,10 @@ public class EventManager implements Serializable {
      */
     public void changeCapacity(String event, int capacity){
         Event e = findEventByName(event);
-        if (e != null)
+        if (e != null) {
             e.setCapacity(capacity);
+            markChanged();
+        }
     }
 
     /**
@@ -539,4 +682,18 @@ public class EventManager implements Serializable {
     public ArrayList<String> getEventSpeakers(String event){
         return findEventByName(event).getSpeaker();
     }
+
+    /**
+     * Returns the number of changes made since this manager was created or read in.
+     *
+     * @return the version of this manager
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    private void markChanged() {
+        version++;
+    }
 }
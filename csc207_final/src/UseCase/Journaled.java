@@ -0,0 +1,16 @@
+package UseCase;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Interface for use cases that can record their changes as journal records, so that saving them only needs to
+ * write out what changed since the last save instead of the whole use case.
+ */
+public interface Journaled extends Versioned {
+    // Returns the records describing every change made since the last call, and forgets them
+    ArrayList<Serializable> takeJournalRecords();
+
+    // Re-applies a record returned by takeJournalRecords, bringing this use case up to the given version
+    void applyJournalRecord(Object record, long version);
+}
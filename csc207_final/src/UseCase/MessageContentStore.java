@@ -0,0 +1,13 @@
+package UseCase;
+
+/**
+ * Interface for storage that holds message contents outside of the Message objects, so that the contents of
+ * messages nobody is reading do not have to be kept in memory.
+ */
+public interface MessageContentStore {
+    // Stores the content of a message and returns the reference to read it back with
+    long store(String content);
+
+    // Reads back the content stored under a reference returned by store
+    String load(long reference);
+}
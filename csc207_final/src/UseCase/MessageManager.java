@@ -1,10 +1,18 @@
 package UseCase;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
+import Entity.Broadcast;
 import Entity.Message;
 
 /**
@@ -18,11 +26,160 @@ import Entity.Message;
  * @author Wenying Wu
  */
 
-public class MessageManager implements Serializable {
+public class MessageManager implements Serializable, Journaled {
+    // Value computed for the first version of the class, so that files saved by it can still be read
+    private static final long serialVersionUID = -4242858257523932934L;
 
     private HashMap<UUID, Message> systemMessages = new HashMap<>(); // Stores undeleted messages
     private HashMap<UUID, Message> deletedMessages = new HashMap<>(); // Stores messages deleted by receiver and sender
+    private HashMap<UUID, Broadcast> broadcasts = new HashMap<>(); // Stores broadcasts with copies not fully deleted
     private transient String senderID;
+    private transient MessageContentStore contentStore; // Holds the contents of messages not created this session
+    private long version = 0; // Number of changes made to the messages, orders the journal records
+
+    // Messages changed since the journal records were last taken, and whether deletedMessages was emptied since
+    private transient LinkedHashSet<UUID> changedMessages = new LinkedHashSet<>();
+    private transient boolean deletedMessagesCleared = false;
+
+    private static final SecureRandom ID_RANDOM = new SecureRandom(); // Source of the IDs of createMessages
+
+    // DateTimeFormatter is immutable and thread-safe, so one instance is shared by every call to formatTime
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss a");
+
+    // Orders messages by time, breaking ties by ID so that messages sent at the same instant are all kept
+    private static final Comparator<StoredMessage> TIME_ORDER =
+            Comparator.comparingLong(StoredMessage::getTimeNanos).thenComparing(StoredMessage::getId);
+
+    // Indexes over systemMessages and the copies of broadcasts, rebuilt after deserialization.
+    // Both keep messages in time order.
+    private transient HashMap<String, LinkedHashSet<UUID>> userMessages = new HashMap<>(); // username -> messages
+    private transient HashMap<String, HashMap<String, TreeSet<StoredMessage>>> conversationMessages =
+            new HashMap<>(); // username -> conversation partner -> messages, shared by both partners
+    private transient HashMap<String, HashMap<String, ConversationSummary>> conversationSummaries =
+            new HashMap<>(); // username -> conversation partner -> summary of the conversation from the user's side
+    private transient HashMap<String, UnreadCounts> unreadCounts =
+            new HashMap<>(); // username -> unread messages of the user, absent if there are none
+
+    /**
+     * Gets the HashMap of all messages not deleted by both their sender and receiver.
+     *
+     * @return HashMap with message IDs as keys and Message objects as values
+     */
+    public HashMap<UUID, Message> getSystemMessages() {
+        return systemMessages;
+    }
+
+    /**
+     * Gets the HashMap of all messages deleted by both their sender and receiver.
+     *
+     * @return HashMap with message IDs as keys and Message objects as values
+     */
+    public HashMap<UUID, Message> getDeletedMessages() {
+        return deletedMessages;
+    }
+
+    /**
+     * Gets the HashMap of all broadcasts that still have a copy not deleted by both its sender and receiver.
+     *
+     * @return HashMap with broadcast IDs as keys and Broadcast objects as values
+     */
+    public HashMap<UUID, Broadcast> getBroadcasts() {
+        return broadcasts;
+    }
+
+    /**
+     * Replaces all stored messages, such as with messages read back from a file.
+     *
+     * @param systemMessages - HashMap of messages not deleted by both their sender and receiver
+     * @param deletedMessages - HashMap of messages deleted by both their sender and receiver
+     * @param broadcasts - HashMap of broadcasts with a copy not deleted by both its sender and receiver
+     * @param version - the number of changes made to the messages, as returned by getVersion
+     */
+    public void setMessages(HashMap<UUID, Message> systemMessages, HashMap<UUID, Message> deletedMessages,
+                            HashMap<UUID, Broadcast> broadcasts, long version) {
+        this.systemMessages = systemMessages;
+        this.deletedMessages = deletedMessages;
+        this.broadcasts = broadcasts;
+        this.version = version;
+        rebuildIndexes();
+        changedMessages.clear();
+        deletedMessagesCleared = false;
+    }
+
+    /**
+     * Replaces the sender and receiver names of all messages with equal instances shared with the rest of the
+     * program, such as the ones stored by UserManager.
+     *
+     * @param intern - returns the shared instance of a username
+     */
+    public void internUsernames(UnaryOperator<String> intern) {
+        for (Message m : systemMessages.values()) {
+            m.internUsernames(intern);
+        }
+        for (Message m : deletedMessages.values()) {
+            m.internUsernames(intern);
+        }
+        for (Broadcast b : broadcasts.values()) {
+            b.internUsernames(intern);
+        }
+        rebuildIndexes();
+    }
+
+    /**
+     * Sets the store that message contents are moved to. The contents of all current messages that are not in the
+     * store yet are moved to it and dropped from memory, and are read back from the store when they are needed.
+     * The moved messages are marked as changed, so that they are saved with their references instead of their
+     * contents and are not moved again the next time the program starts.
+     * Messages created afterwards keep their contents in memory.
+     *
+     * @param contentStore - the store to hold message contents
+     */
+    public void setContentStore(MessageContentStore contentStore) {
+        this.contentStore = contentStore;
+        for (Message m : systemMessages.values()) {
+            moveContentToStore(m);
+        }
+        for (Message m : deletedMessages.values()) {
+            moveContentToStore(m);
+        }
+        for (Broadcast b : broadcasts.values()) {
+            if (b.getContent() != null && b.getContentReference() < 0) {
+                b.moveContentToStore(contentStore.store(b.getContent()));
+                markChanged(b.getId());
+            }
+        }
+    }
+
+    private void moveContentToStore(Message message) {
+        if (message.getContent() != null && message.getContentReference() < 0) {
+            message.moveContentToStore(contentStore.store(message.getContent()));
+            markChanged(message.getId());
+        }
+    }
+
+    /**
+     * Returns the references of all contents that messages hold in a content store, including the contents of
+     * deleted messages that can still be restored. Any other content in the store is no longer used.
+     *
+     * @return the content references held by messages, in no particular order
+     */
+    public long[] getStoredContentReferences() {
+        long[] references = new long[systemMessages.size() + deletedMessages.size() + broadcasts.size()];
+        int count = 0;
+        for (Message m : systemMessages.values()) {
+            if (m.getContentReference() >= 0)
+                references[count++] = m.getContentReference();
+        }
+        for (Message m : deletedMessages.values()) {
+            if (m.getContentReference() >= 0)
+                references[count++] = m.getContentReference();
+        }
+        for (Broadcast b : broadcasts.values()) {
+            if (b.getContentReference() >= 0)
+                references[count++] = b.getContentReference();
+        }
+        return Arrays.copyOf(references, count);
+    }
 
     /**
      * Sets sender ID.
@@ -42,24 +199,788 @@ public class MessageManager implements Serializable {
     public boolean createMessage(String receiverID, String messageContent){
         Message newMessage = new Message(senderID, receiverID, messageContent);
         systemMessages.put(newMessage.getId(), newMessage);
+        addToIndexes(new StoredMessage(newMessage));
+        markChanged(newMessage.getId());
+        return true;
+    }
+
+    /**
+     * Creates the same message for each of the given receivers in one call. The messages are stored once as a
+     * broadcast instead of as a Message per receiver, and each receiver sees their copy as a message of its own,
+     * that can be read, archived and deleted on its own. This does not check whether or not the receivers are
+     * valid.
+     * @param receiverIDs - Usernames of the message receivers.
+     * @param messageContent - The message text.
+     * @return true if a message was sent to at least one receiver.
+     */
+    public boolean createMessages(Collection<String> receiverIDs, String messageContent){
+        if (receiverIDs.isEmpty()) {
+            return false;
+        }
+        Broadcast newBroadcast = new Broadcast(senderID, receiverIDs, messageContent);
+        broadcasts.put(newBroadcast.getId(), newBroadcast);
+        addToIndexes(newBroadcast);
+        markChanged(newBroadcast.getId());
         return true;
     }
 
+    /**
+     * Creates a message for each of the given drafts in one call. This does not check whether or not the
+     * receivers are valid.
+     * @param drafts - The receivers and contents of the messages, in the order they are sent.
+     * @return true if at least one message was created.
+     */
+    public boolean createMessages(List<Draft> drafts){
+        if (drafts.isEmpty()) {
+            return false;
+        }
+        // IDs are drawn in one call, and the clock is read once with each message a nanosecond after the previous
+        // one, so that the messages keep the order of the drafts
+        byte[] randomBits = new byte[16 * drafts.size()];
+        ID_RANDOM.nextBytes(randomBits);
+        ByteBuffer ids = ByteBuffer.wrap(randomBits);
+        LocalDateTime time = LocalDateTime.now();
+
+        ArrayList<StoredMessage> newMessages = new ArrayList<>(drafts.size());
+        for (Draft draft : drafts) {
+            long mostSignificantBits = (ids.getLong() & ~0xF000L) | 0x4000L; // version 4, like UUID.randomUUID
+            long leastSignificantBits = (ids.getLong() & ~(0xC0L << 56)) | (0x80L << 56); // IETF variant
+            Message newMessage = new Message(new UUID(mostSignificantBits, leastSignificantBits), senderID,
+                    draft.receiverID, draft.content, time);
+            time = time.plusNanos(1);
+            systemMessages.put(newMessage.getId(), newMessage);
+            newMessages.add(new StoredMessage(newMessage));
+            markChanged(newMessage.getId());
+        }
+        addToIndexes(senderID, newMessages);
+        return true;
+    }
+
+    /**
+     * The receiver and content of a message to be created by createMessages.
+     */
+    public static final class Draft {
+        private final String receiverID;
+        private final String content;
+
+        /**
+         * Creates a Draft.
+         * @param receiverID - Username of the message receiver.
+         * @param content - The message text.
+         */
+        public Draft(String receiverID, String content) {
+            this.receiverID = receiverID;
+            this.content = content;
+        }
+    }
+
+    /**
+     * Adds a message to the per-user and per-conversation indexes of both its sender and receiver.
+     *
+     * @param message - message that was just added to systemMessages, or a copy of a broadcast
+     */
+    private void addToIndexes(StoredMessage message) {
+        addToIndexes(message.getSender(), Collections.singletonList(message));
+    }
+
+    /**
+     * Adds messages sent by the same sender to the per-user and per-conversation indexes in one pass.
+     * The sender's own indexes are looked up once, and created large enough for all of the messages.
+     *
+     * @param sender - Username of the sender of every message.
+     * @param messages - messages that were just added to systemMessages, or copies of a broadcast
+     */
+    private void addToIndexes(String sender, List<StoredMessage> messages) {
+        int capacity = messages.size() * 4 / 3 + 1;
+        LinkedHashSet<UUID> senderMessages = userMessages.computeIfAbsent(sender,
+                k -> new LinkedHashSet<>(capacity));
+        HashMap<String, TreeSet<StoredMessage>> senderPartners = conversationMessages.computeIfAbsent(sender,
+                k -> new HashMap<>(capacity));
+        for (StoredMessage message : messages) {
+            String receiver = message.getReceiver();
+            UUID id = message.getId();
+            senderMessages.add(id);
+            userMessages.computeIfAbsent(receiver, k -> new LinkedHashSet<>()).add(id);
+            TreeSet<StoredMessage> conversation = senderPartners.get(receiver);
+            if (conversation == null) {
+                conversation = new TreeSet<>(TIME_ORDER);
+                senderPartners.put(receiver, conversation);
+                conversationMessages.computeIfAbsent(receiver, k -> new HashMap<>()).put(sender, conversation);
+            }
+            if (conversation.add(message)) {
+                updateSummaries(message, 1);
+            }
+        }
+    }
+
+    /**
+     * Adds the copies of a broadcast that are not fully deleted to the indexes.
+     *
+     * @param broadcast - broadcast that was just added to broadcasts
+     */
+    private void addToIndexes(Broadcast broadcast) {
+        ArrayList<StoredMessage> copies = new ArrayList<>(broadcast.getRecipientCount());
+        for (int i = 0; i < broadcast.getRecipientCount(); i++) {
+            if (!broadcast.isFullyDeleted(i)) {
+                copies.add(new StoredMessage(broadcast, i));
+            }
+        }
+        addToIndexes(broadcast.getSender(), copies);
+    }
+
+    /**
+     * Removes the copies of a broadcast that are not fully deleted from the indexes.
+     *
+     * @param broadcast - broadcast that was just removed from broadcasts
+     */
+    private void removeFromIndexes(Broadcast broadcast) {
+        for (int i = 0; i < broadcast.getRecipientCount(); i++) {
+            if (!broadcast.isFullyDeleted(i)) {
+                removeFromIndexes(new StoredMessage(broadcast, i));
+            }
+        }
+    }
+
+    /**
+     * Removes a message from the per-user and per-conversation indexes of both its sender and receiver.
+     *
+     * @param message - message that was just removed from systemMessages, or a copy of a broadcast
+     */
+    private void removeFromIndexes(StoredMessage message) {
+        String sender = message.getSender();
+        String receiver = message.getReceiver();
+        UUID id = message.getId();
+        removeFromUserIndex(sender, id);
+        removeFromUserIndex(receiver, id);
+        HashMap<String, TreeSet<StoredMessage>> senderPartners = conversationMessages.get(sender);
+        if (senderPartners == null || !senderPartners.containsKey(receiver)) {
+            return;
+        }
+        TreeSet<StoredMessage> conversation = senderPartners.get(receiver);
+        if (!conversation.remove(message)) {
+            return;
+        }
+        updateSummaries(message, -1);
+        if (conversation.isEmpty()) {
+            removeConversation(sender, receiver);
+            removeConversation(receiver, sender);
+        } else {
+            long lastTimeNanos = conversation.last().getTimeNanos();
+            getSummary(sender, receiver).lastTimeNanos = lastTimeNanos;
+            getSummary(receiver, sender).lastTimeNanos = lastTimeNanos;
+        }
+    }
+
+    private void removeFromUserIndex(String userID, UUID messageID) {
+        LinkedHashSet<UUID> messages = userMessages.get(userID);
+        if (messages != null) {
+            messages.remove(messageID);
+            if (messages.isEmpty()) {
+                userMessages.remove(userID);
+            }
+        }
+    }
+
+    private void removeConversation(String userID, String otherID) {
+        HashMap<String, TreeSet<StoredMessage>> partners = conversationMessages.get(userID);
+        if (partners != null) {
+            partners.remove(otherID);
+            if (partners.isEmpty()) {
+                conversationMessages.remove(userID);
+            }
+        }
+        HashMap<String, ConversationSummary> summaries = conversationSummaries.get(userID);
+        if (summaries != null) {
+            summaries.remove(otherID);
+            if (summaries.isEmpty()) {
+                conversationSummaries.remove(userID);
+            }
+        }
+    }
+
+    /**
+     * Summary of a user's conversation with one partner, from the user's side. Kept up to date as messages are
+     * created, read, archived and deleted, so that the lists of conversations never have to go through the
+     * messages themselves.
+     */
+    private static final class ConversationSummary {
+        private long lastTimeNanos = Long.MIN_VALUE; // time of the latest message in the conversation
+        private int visible; // messages neither archived nor deleted by the user
+        private int archived; // messages archived by the user
+        private int unread; // visible messages received by the user and not read
+    }
+
+    /**
+     * Counts of a user's unread messages over all of their conversations, kept up to date with the conversation
+     * summaries.
+     */
+    private static final class UnreadCounts {
+        private int messages; // visible messages received by the user and not read
+        private int conversations; // conversations holding at least one of these messages
+    }
+
+    /**
+     * @param userID - Username of the user.
+     * @param otherID - Username of the conversation partner.
+     * @return the summary of the user's conversation with the partner, created if there was none.
+     */
+    private ConversationSummary getSummary(String userID, String otherID) {
+        return conversationSummaries.computeIfAbsent(userID, k -> new HashMap<>())
+                .computeIfAbsent(otherID, k -> new ConversationSummary());
+    }
+
+    /**
+     * Adds a message to, or removes it from, the conversation summaries of its sender and receiver.
+     *
+     * @param message - message in the indexes
+     * @param change - 1 to add the message with its current flags, -1 to remove it
+     */
+    private void updateSummaries(StoredMessage message, int change) {
+        String sender = message.getSender();
+        String receiver = message.getReceiver();
+        updateSummary(getSummary(sender, receiver), sender, message, change);
+        if (!receiver.equals(sender)) {
+            updateSummary(getSummary(receiver, sender), receiver, message, change);
+        }
+    }
+
+    private void updateSummary(ConversationSummary summary, String userID, StoredMessage message, int change) {
+        if (change > 0) {
+            summary.lastTimeNanos = Math.max(summary.lastTimeNanos, message.getTimeNanos());
+        }
+        if (message.isArchivedBy(userID)) {
+            summary.archived += change;
+        } else if (!message.isDeletedBy(userID)) {
+            summary.visible += change;
+            if (userID.equals(message.getReceiver()) && !message.isReadStatus()) {
+                updateUnreadCounts(userID, summary, change);
+            }
+        }
+    }
+
+    /**
+     * Adds to or subtracts from the unread messages of a user in one conversation and in total.
+     *
+     * @param userID - Username of the receiver of the unread message.
+     * @param summary - summary of the receiver's conversation holding the message.
+     * @param change - 1 for a new unread message, -1 for one that was read, archived, deleted or removed
+     */
+    private void updateUnreadCounts(String userID, ConversationSummary summary, int change) {
+        boolean wasUnread = summary.unread > 0;
+        summary.unread += change;
+        UnreadCounts counts = unreadCounts.computeIfAbsent(userID, k -> new UnreadCounts());
+        counts.messages += change;
+        if (wasUnread != summary.unread > 0) {
+            counts.conversations += wasUnread ? -1 : 1;
+        }
+        if (counts.messages == 0) {
+            unreadCounts.remove(userID);
+        }
+    }
+
+    /**
+     * Changes the flags of a message, keeping the conversation summaries up to date.
+     *
+     * @param message - message to change
+     * @param change - sets or clears flags of the message
+     */
+    private void updateFlags(StoredMessage message, Consumer<StoredMessage> change) {
+        // Messages in deletedMessages are not in the indexes, so they are in no summary
+        boolean indexed = message.broadcast != null || systemMessages.containsKey(message.getId());
+        if (indexed) {
+            updateSummaries(message, -1);
+        }
+        change.accept(message);
+        if (indexed) {
+            updateSummaries(message, 1);
+        }
+    }
+
+    /**
+     * Rebuilds the message indexes from systemMessages and broadcasts, inserting messages in time order.
+     */
+    private void rebuildIndexes() {
+        userMessages = new HashMap<>();
+        conversationMessages = new HashMap<>();
+        conversationSummaries = new HashMap<>();
+        unreadCounts = new HashMap<>();
+        ArrayList<StoredMessage> messages = new ArrayList<>(systemMessages.size());
+        for (Message m : systemMessages.values()) {
+            messages.add(new StoredMessage(m));
+        }
+        for (Broadcast b : broadcasts.values()) {
+            for (int i = 0; i < b.getRecipientCount(); i++) {
+                if (!b.isFullyDeleted(i)) {
+                    messages.add(new StoredMessage(b, i));
+                }
+            }
+        }
+        messages.sort(TIME_ORDER);
+        for (StoredMessage m : messages) {
+            addToIndexes(m);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (broadcasts == null) {
+            // Saved before broadcasts existed
+            broadcasts = new HashMap<>();
+        }
+        rebuildIndexes();
+        changedMessages = new LinkedHashSet<>();
+    }
+
+    /**
+     * Records that a message was created or changed, so that it is included in the next journal records.
+     *
+     * @param messageID - ID of the changed message, of the changed copy of a broadcast, or of a broadcast that
+     *                  was created or removed
+     */
+    private void markChanged(UUID messageID) {
+        version++;
+        changedMessages.add(messageID);
+    }
+
+    /**
+     * @return the number of changes made to the messages since they were first created.
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns one record per message or broadcast changed since the last call, holding its current state,
+     * preceded by a record for emptying the deleted messages if that happened since the last call.
+     * A changed copy of a broadcast that is still in some inbox is recorded by its flags alone.
+     *
+     * @return list of journal records, in the order they have to be applied.
+     */
+    @Override
+    public ArrayList<Serializable> takeJournalRecords() {
+        ArrayList<Serializable> records = new ArrayList<>();
+        if (deletedMessagesCleared) {
+            records.add(new ClearDeletedRecord());
+        }
+        for (UUID id : changedMessages) {
+            Broadcast broadcast = Broadcast.isCopyId(id) && !deletedMessages.containsKey(id)
+                    ? broadcasts.get(Broadcast.getBroadcastId(id)) : null;
+            int recipient = broadcast != null ? Broadcast.getRecipient(id) : -1;
+            if (Broadcast.isBroadcastId(id)) {
+                records.add(new BroadcastRecord(id, broadcasts.get(id)));
+            } else if (broadcast != null && !broadcast.isFullyDeleted(recipient)) {
+                records.add(new CopyRecord(broadcast.getId(), recipient, broadcast.getFlags(recipient)));
+            } else if (systemMessages.containsKey(id)) {
+                records.add(new MessageRecord(id, systemMessages.get(id), false));
+            } else {
+                records.add(new MessageRecord(id, deletedMessages.get(id), true));
+            }
+        }
+        changedMessages.clear();
+        deletedMessagesCleared = false;
+        return records;
+    }
+
+    /**
+     * Applies a record taken by takeJournalRecords, replacing the stored state of its message.
+     *
+     * @param record - a MessageRecord, BroadcastRecord, CopyRecord or ClearDeletedRecord
+     * @param version - the version of the messages once the record is applied
+     */
+    @Override
+    public void applyJournalRecord(Object record, long version) {
+        if (record instanceof ClearDeletedRecord) {
+            deletedMessages.clear();
+        } else if (record instanceof BroadcastRecord) {
+            BroadcastRecord broadcastRecord = (BroadcastRecord) record;
+            Broadcast old = broadcasts.remove(broadcastRecord.id);
+            if (old != null) {
+                removeFromIndexes(old);
+            }
+            if (broadcastRecord.broadcast != null) {
+                broadcasts.put(broadcastRecord.id, broadcastRecord.broadcast);
+                addToIndexes(broadcastRecord.broadcast);
+            }
+        } else if (record instanceof CopyRecord) {
+            CopyRecord copyRecord = (CopyRecord) record;
+            Broadcast broadcast = broadcasts.get(copyRecord.broadcastId);
+            if (broadcast != null && !broadcast.isFullyDeleted(copyRecord.recipient)) {
+                updateFlags(new StoredMessage(broadcast, copyRecord.recipient),
+                        m -> broadcast.setFlags(copyRecord.recipient, copyRecord.flags));
+            }
+        } else if (record instanceof MessageRecord) {
+            MessageRecord messageRecord = (MessageRecord) record;
+            UUID id = messageRecord.id;
+            Message updated = messageRecord.message;
+            if (Broadcast.isCopyId(id)) {
+                // A copy is only recorded as a Message once it was moved to the deleted messages
+                removeCopyFromBroadcast(id);
+            }
+            Message old = systemMessages.remove(id);
+            deletedMessages.remove(id);
+
+            if (updated == null || messageRecord.fullyDeleted) {
+                if (old != null) {
+                    removeFromIndexes(new StoredMessage(old));
+                }
+                if (updated != null) {
+                    deletedMessages.put(id, updated);
+                }
+            } else {
+                systemMessages.put(id, updated);
+                if (old == null) {
+                    addToIndexes(new StoredMessage(updated));
+                } else {
+                    // Same ID and time, so the message keeps its place in the time-ordered indexes
+                    NavigableSet<StoredMessage> conversation = getConversation(old.getSender(), old.getReceiver());
+                    StoredMessage oldMessage = new StoredMessage(old);
+                    StoredMessage updatedMessage = new StoredMessage(updated);
+                    conversation.remove(oldMessage);
+                    updateSummaries(oldMessage, -1);
+                    conversation.add(updatedMessage);
+                    updateSummaries(updatedMessage, 1);
+                }
+            }
+        }
+        this.version = version;
+    }
+
+    /**
+     * Journal record holding the state of a single message, or null if the message was permanently deleted.
+     */
+    private static class MessageRecord implements Serializable {
+        private static final long serialVersionUID = 553812838536796843L;
+
+        private final UUID id;
+        private final Message message;
+        private final boolean fullyDeleted; // true if the message is in deletedMessages
+
+        private MessageRecord(UUID id, Message message, boolean fullyDeleted) {
+            this.id = id;
+            this.message = message;
+            this.fullyDeleted = fullyDeleted;
+        }
+    }
+
+    /**
+     * Journal record holding the state of a single broadcast, or null if all of its copies were fully deleted.
+     */
+    private static class BroadcastRecord implements Serializable {
+        private static final long serialVersionUID = 8679652234264776592L;
+
+        private final UUID id;
+        private final Broadcast broadcast;
+
+        private BroadcastRecord(UUID id, Broadcast broadcast) {
+            this.id = id;
+            this.broadcast = broadcast;
+        }
+    }
+
+    /**
+     * Journal record holding the flags of one copy of a broadcast, so that changing a single copy does not
+     * record the whole broadcast again.
+     */
+    private static class CopyRecord implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final UUID broadcastId;
+        private final int recipient;
+        private final byte flags; // flags of the copy, as returned by Broadcast.getFlags
+
+        private CopyRecord(UUID broadcastId, int recipient, byte flags) {
+            this.broadcastId = broadcastId;
+            this.recipient = recipient;
+            this.flags = flags;
+        }
+    }
+
+    /**
+     * Journal record for emptying deletedMessages.
+     */
+    private static class ClearDeletedRecord implements Serializable {
+        private static final long serialVersionUID = -8414098633298499774L;
+    }
+
+    /**
+     * A message as it is stored: either a Message, or one recipient's copy of a Broadcast.
+     * Gives both kinds the same getters and setters, so that the rest of MessageManager does not have to tell
+     * them apart.
+     */
+    private static final class StoredMessage {
+        private final Message message; // null for a copy of a broadcast
+        private final Broadcast broadcast; // null for a Message
+        private final int recipient; // number of the recipient of a copy of a broadcast
+
+        private StoredMessage(Message message) {
+            this.message = message;
+            this.broadcast = null;
+            this.recipient = -1;
+        }
+
+        private StoredMessage(Broadcast broadcast, int recipient) {
+            this.message = null;
+            this.broadcast = broadcast;
+            this.recipient = recipient;
+        }
+
+        private UUID getId() {
+            return message != null ? message.getId() : broadcast.getMessageId(recipient);
+        }
+
+        private String getSender() {
+            return message != null ? message.getSender() : broadcast.getSender();
+        }
+
+        private String getReceiver() {
+            return message != null ? message.getReceiver() : broadcast.getReceiver(recipient);
+        }
+
+        private String getContent() {
+            return message != null ? message.getContent() : broadcast.getContent();
+        }
+
+        private long getContentReference() {
+            return message != null ? message.getContentReference() : broadcast.getContentReference();
+        }
+
+        private LocalDateTime getTime() {
+            return message != null ? message.getTime() : broadcast.getTime();
+        }
+
+        private long getTimeNanos() {
+            return message != null ? message.getTimeNanos() : broadcast.getTimeNanos();
+        }
+
+        private boolean isReadStatus() {
+            return message != null ? message.isReadStatus() : broadcast.isReadStatus(recipient);
+        }
+
+        private boolean isArchivedBySender() {
+            return message != null ? message.isArchivedBySender() : broadcast.isArchivedBySender(recipient);
+        }
+
+        private boolean isArchivedByReceiver() {
+            return message != null ? message.isArchivedByReceiver() : broadcast.isArchivedByReceiver(recipient);
+        }
+
+        private boolean isDeletedBySender() {
+            return message != null ? message.isDeletedBySender() : broadcast.isDeletedBySender(recipient);
+        }
+
+        private boolean isDeletedByReceiver() {
+            return message != null ? message.isDeletedByReceiver() : broadcast.isDeletedByReceiver(recipient);
+        }
+
+        private void markAsRead() {
+            if (message != null) message.markAsRead(); else broadcast.markAsRead(recipient);
+        }
+
+        private void markAsUnread() {
+            if (message != null) message.markAsUnread(); else broadcast.markAsUnread(recipient);
+        }
+
+        private void markAsSenderArchive() {
+            if (message != null) message.markAsSenderArchive(); else broadcast.markAsSenderArchive(recipient);
+        }
+
+        private void unMarkAsSenderArchive() {
+            if (message != null) message.unMarkAsSenderArchive(); else broadcast.unMarkAsSenderArchive(recipient);
+        }
+
+        private void markAsReceiverArchive() {
+            if (message != null) message.markAsReceiverArchive(); else broadcast.markAsReceiverArchive(recipient);
+        }
+
+        private void unMarkAsReceiverArchive() {
+            if (message != null) message.unMarkAsReceiverArchive(); else broadcast.unMarkAsReceiverArchive(recipient);
+        }
+
+        private void markAsSenderDeleted() {
+            if (message != null) message.markAsSenderDeleted(); else broadcast.markAsSenderDeleted(recipient);
+        }
+
+        private void markAsReceiverDeleted() {
+            if (message != null) message.markAsReceiverDeleted(); else broadcast.markAsReceiverDeleted(recipient);
+        }
+
+        /**
+         * @param userID - Username of the sender or receiver of the message.
+         * @return true if the user has archived the message, using the sender flags if the user sent it.
+         */
+        private boolean isArchivedBy(String userID) {
+            return userID.equals(getSender()) ? isArchivedBySender() : isArchivedByReceiver();
+        }
+
+        /**
+         * @param userID - Username of the sender or receiver of the message.
+         * @return true if the user has deleted the message, using the sender flags if the user sent it.
+         */
+        private boolean isDeletedBy(String userID) {
+            return userID.equals(getSender()) ? isDeletedBySender() : isDeletedByReceiver();
+        }
+
+        /**
+         * @param userID - Username of the sender or receiver of the message.
+         * @return true if the message is neither archived nor deleted by the user.
+         */
+        private boolean isVisibleTo(String userID) {
+            return !isArchivedBy(userID) && !isDeletedBy(userID);
+        }
+    }
+
+    /**
+     * A read-only view of one message, as seen by the user that was current when the view was made.
+     *
+     * The message is looked up once when the view is made, so reading several of its fields does not look it up
+     * again. The view reads the stored message, so it shows flag changes made after it was made.
+     */
+    public static final class MessageView {
+        private final StoredMessage message;
+        private final String viewerID; // user the view was made for
+        private final MessageContentStore contentStore; // store holding the content if it was moved, or null
+
+        private MessageView(StoredMessage message, String viewerID, MessageContentStore contentStore) {
+            this.message = message;
+            this.viewerID = viewerID;
+            this.contentStore = contentStore;
+        }
+
+        /**
+         * @return ID of the message
+         */
+        public UUID getId() {
+            return message.getId();
+        }
+
+        /**
+         * @return sender of message
+         */
+        public String getSender() {
+            return message.getSender();
+        }
+
+        /**
+         * @return receiver of message
+         */
+        public String getReceiver() {
+            return message.getReceiver();
+        }
+
+        /**
+         * @return false if the content was moved to a content store that is not open, so it cannot be read
+         */
+        public boolean isContentAvailable() {
+            return message.getContent() != null || contentStore != null;
+        }
+
+        /**
+         * @return content of message, loaded from the content store if it was moved there
+         * @throws IllegalStateException - If the content was moved to a content store that is not open.
+         */
+        public String getContent() {
+            if (message.getContent() == null && message.getContentReference() >= 0) {
+                if (contentStore == null) {
+                    throw new IllegalStateException("Invalid state: the content of message " + getId()
+                            + " is in a content store that is not open");
+                }
+                return contentStore.load(message.getContentReference());
+            }
+            return message.getContent();
+        }
+
+        /**
+         * @return time of message
+         */
+        public String getTime() {
+            return formatTime(message.getTime());
+        }
+
+        /**
+         * @return true if the viewer sent the message
+         */
+        public boolean isSender() {
+            return viewerID.equals(message.getSender());
+        }
+
+        /**
+         * @return true if the viewer received the message
+         */
+        public boolean isReceiver() {
+            return viewerID.equals(message.getReceiver());
+        }
+
+        /**
+         * @return true if message is marked as read, false if not.
+         */
+        public boolean isRead() {
+            return message.isReadStatus();
+        }
+
+        /**
+         * @return true if the viewer has archived the message
+         */
+        public boolean isArchived() {
+            return message.isArchivedBy(viewerID);
+        }
+
+        /**
+         * @return true if the viewer has deleted the message
+         */
+        public boolean isDeleted() {
+            return message.isDeletedBy(viewerID);
+        }
+    }
+
     /**
      * @param messageID - ID of the message.
-     * @return the message object that corresponds to the messageID
+     * @return the message that corresponds to the messageID, or null if there is none
      */
-    private Message getMessage(UUID messageID){
-        if (systemMessages.get(messageID)==null){
-            return deletedMessages.get(messageID);
-        } return systemMessages.get(messageID);
+    private StoredMessage getMessage(UUID messageID){
+        Message message = systemMessages.get(messageID);
+        if (message == null) {
+            message = deletedMessages.get(messageID);
+        }
+        if (message != null) {
+            return new StoredMessage(message);
+        }
+        if (Broadcast.isCopyId(messageID)) {
+            // Fully deleted copies were moved to deletedMessages as Messages of their own
+            Broadcast broadcast = broadcasts.get(Broadcast.getBroadcastId(messageID));
+            int recipient = Broadcast.getRecipient(messageID);
+            if (broadcast != null && recipient < broadcast.getRecipientCount()
+                    && !broadcast.isFullyDeleted(recipient)) {
+                return new StoredMessage(broadcast, recipient);
+            }
+        }
+        return null;
     }
 
     /**
-     * @param messageID - ID of the message
-     * @return true if message is marked as read, false if not.
+     * Looks up a message once, so that all of its fields can be read without looking it up again.
+     *
+     * @param messageID - ID of the message.
+     * @return a read-only view of the message for the current user, or null if there is no such message.
+     */
+    public MessageView getMessageView(UUID messageID){
+        StoredMessage message = getMessage(messageID);
+        return message == null ? null : new MessageView(message, senderID, contentStore);
+    }
+
+    /**
+     * Looks up a list of messages, each once.
+     *
+     * @param messageIDs - IDs of the messages.
+     * @return read-only views of the messages for the current user, in the same order as their IDs.
      */
-    private boolean getMessageReadStatus(UUID messageID) { return getMessage(messageID).isReadStatus();}
+    public ArrayList<MessageView> getMessageViews(List<UUID> messageIDs){
+        ArrayList<MessageView> views = new ArrayList<>(messageIDs.size());
+        for (UUID messageID : messageIDs) {
+            views.add(getMessageView(messageID));
+        }
+        return views;
+    }
 
     /**
      * @param messageID - ID of the message.
@@ -82,7 +1003,7 @@ public class MessageManager implements Serializable {
      * @return content of message
      */
     public String getMessageContent(UUID messageID){
-        return getMessage(messageID).getContent();
+        return getMessageView(messageID).getContent();
     }
 
     /**
@@ -90,9 +1011,15 @@ public class MessageManager implements Serializable {
      * @return time of message
      */
     public String getMessageTime(UUID messageID){
-        LocalDateTime messageTime = getMessage(messageID).getTime();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss a");
-        return messageTime.format(formatter);
+        return formatTime(getMessage(messageID).getTime());
+    }
+
+    /**
+     * @param messageTime - time of a message.
+     * @return the time as it is shown to users
+     */
+    private static String formatTime(LocalDateTime messageTime){
+        return TIME_FORMAT.format(messageTime);
     }
 
     /**
@@ -103,33 +1030,26 @@ public class MessageManager implements Serializable {
      *          as both sender and receiver, sorted by time.
      */
     private ArrayList<UUID> getMessages(String userID) {
-        ArrayList<Message> messageHistory = new ArrayList<>();
-        for (Message m : systemMessages.values()) {
-            if (m.getSender().equals(userID) || m.getReceiver().equals(userID)){
-                messageHistory.add(m);}
+        LinkedHashSet<UUID> messageIDs = userMessages.get(userID);
+        if (messageIDs == null) {
+            return new ArrayList<>();
         }
-        Collections.sort(messageHistory);
-        ArrayList<UUID> messageIDs = new ArrayList<>();
-        for (Message m: messageHistory){
-            messageIDs.add(m.getId());
-        }
-        return messageIDs;
+        return new ArrayList<>(messageIDs);
     }
 
     /**
-     * Get message history of current user
+     * Helper method, returns the time-ordered set of messages sent between two accounts.
      *
-     * @return ArrayList containing all messageIDs of all sent or received
-     * messages of current user. Does not include archived or deleted messages.
+     * @param userID - Username of the user.
+     * @param otherID - Username of the conversation partner.
+     * @return the messages between the two accounts, or an empty set if there are none.
      */
-    private ArrayList<UUID> getVisibleSenderMessages(){
-        ArrayList<UUID> allSenderMessages = new ArrayList<>();
-        for (UUID m: getMessages(senderID)){
-            if (isMessageArchived(m)||isMessageDeleted(m)) {
-                continue;
-            } allSenderMessages.add(m);
+    private NavigableSet<StoredMessage> getConversation(String userID, String otherID) {
+        HashMap<String, TreeSet<StoredMessage>> partners = conversationMessages.get(userID);
+        if (partners == null || !partners.containsKey(otherID)) {
+            return Collections.emptyNavigableSet();
         }
-        return allSenderMessages;
+        return partners.get(otherID);
     }
 
     /**
@@ -141,7 +1061,7 @@ public class MessageManager implements Serializable {
     private ArrayList<UUID> getArchivedSenderMessages(){
         ArrayList<UUID> archivedMessages = new ArrayList<>();
         for (UUID m: getMessages(senderID)){
-            if (isMessageArchived(m)){
+            if (getMessage(m).isArchivedBy(senderID)){
                 archivedMessages.add(m);
             }
         }
@@ -157,7 +1077,7 @@ public class MessageManager implements Serializable {
      */
 
     public boolean isSender(UUID messageID) {
-        return senderID.equals(getMessageSender(messageID));
+        return senderID.equals(getMessage(messageID).getSender());
     }
 
     /**
@@ -166,41 +1086,101 @@ public class MessageManager implements Serializable {
      * @return true if current user is receiver of message
      */
     public boolean isReceiver(UUID messageID){
-        return senderID.equals(getMessageReceiver(messageID));
+        return senderID.equals(getMessage(messageID).getReceiver());
     }
 
     /**
      * Generates list of current user's messages that are marked as unread.
      *
-     * @return list of UUIDs of user's unread messages.
+     * @return list of UUIDs of user's unread messages, the oldest first.
      */
     public ArrayList<UUID> getUnreadSenderMessages(){
-        ArrayList<UUID> unarchivedMessages = getVisibleSenderMessages();
-        ArrayList<UUID> unreadMessages = new ArrayList<>();
-        for (UUID i : unarchivedMessages){
-            if ((!getMessageReadStatus(i))&&isReceiver(i)){
-                unreadMessages.add(i);
+        ArrayList<StoredMessage> unreadMessages = new ArrayList<>(getUnreadMessageCount());
+        HashMap<String, ConversationSummary> summaries = conversationSummaries.get(senderID);
+        if (summaries == null) {
+            return new ArrayList<>();
+        }
+        // Only conversations that hold unread messages are searched
+        for (Map.Entry<String, ConversationSummary> summary : summaries.entrySet()) {
+            if (summary.getValue().unread == 0) {
+                continue;
+            }
+            for (StoredMessage m : getConversation(senderID, summary.getKey())) {
+                if (senderID.equals(m.getReceiver()) && !m.isReadStatus() && m.isVisibleTo(senderID)) {
+                    unreadMessages.add(m);
+                }
             }
         }
-        return unreadMessages;
+        // Each conversation is already in time order, but the conversations are not
+        unreadMessages.sort(TIME_ORDER);
+        ArrayList<UUID> unreadIDs = new ArrayList<>(unreadMessages.size());
+        for (StoredMessage m : unreadMessages) {
+            unreadIDs.add(m.getId());
+        }
+        return unreadIDs;
+    }
+
+    /**
+     * Counts the unread messages of current user.
+     *
+     * @return number of unarchived messages received by current user and not read.
+     */
+    public int getUnreadMessageCount(){
+        UnreadCounts counts = unreadCounts.get(senderID);
+        return counts == null ? 0 : counts.messages;
+    }
+
+    /**
+     * Counts the chat partners that current user has unread messages from.
+     *
+     * @return number of users that current user has unarchived unread messages from.
+     */
+    public int getUnreadConversationCount(){
+        UnreadCounts counts = unreadCounts.get(senderID);
+        return counts == null ? 0 : counts.conversations;
     }
 
     /**
      * Helper method, generates list of string usernames of conversation partners that current user has
-     * based of a list of messages.
+     * based on the summaries of the current user's conversations.
      *
-     * @param messages - list of UUID message IDs that the current user is sender or receiver of.
-     * @return a list of usernames of conversation partners
+     * @param include - checks if the conversation with a partner belongs in the list.
+     * @return a list of usernames of conversation partners, the most recent conversation first. Conversations
+     * last active at the same time, such as those of a broadcast, are in the order of the partners' usernames.
      */
-    private ArrayList<String> getChatHeadsList(ArrayList<UUID> messages){
-        ArrayList<String> conversations = new ArrayList<>();
-        for (UUID i: messages){
-            if (isSender(i)){
-                conversations.add(getMessage(i).getReceiver());
-            } else {conversations.add(getMessage(i).getSender());}
+    private ArrayList<String> getChatHeadsList(Predicate<ConversationSummary> include){
+        HashMap<String, ConversationSummary> summaries = conversationSummaries.get(senderID);
+        if (summaries == null) {
+            return new ArrayList<>();
         }
-        LinkedHashSet<String> hashSet = new LinkedHashSet<>(conversations);
-        return new ArrayList<>(hashSet);
+        ArrayList<Map.Entry<String, ConversationSummary>> chatHeads = new ArrayList<>();
+        for (Map.Entry<String, ConversationSummary> summary : summaries.entrySet()) {
+            if (include.test(summary.getValue())) {
+                chatHeads.add(summary);
+            }
+        }
+        chatHeads.sort((a, b) -> {
+            int byTime = Long.compare(b.getValue().lastTimeNanos, a.getValue().lastTimeNanos);
+            return byTime != 0 ? byTime : a.getKey().compareTo(b.getKey());
+        });
+        ArrayList<String> conversations = new ArrayList<>(chatHeads.size());
+        for (Map.Entry<String, ConversationSummary> chatHead : chatHeads) {
+            conversations.add(chatHead.getKey());
+        }
+        return conversations;
+    }
+
+    /**
+     * Helper method, checks the summary of the current user's conversation with a partner.
+     *
+     * @param otherID - username of the conversation partner.
+     * @param include - checks the summary of the conversation.
+     * @return true if the users have a conversation and its summary passes the check, false otherwise.
+     */
+    private boolean hasConversation(String otherID, Predicate<ConversationSummary> include){
+        HashMap<String, ConversationSummary> summaries = conversationSummaries.get(senderID);
+        ConversationSummary summary = summaries == null ? null : summaries.get(otherID);
+        return summary != null && include.test(summary);
     }
 
     /**
@@ -209,8 +1189,7 @@ public class MessageManager implements Serializable {
      * @return list of String usernames that current user has unarchived messages with.
      */
     public ArrayList<String> getSenderConversations(){
-        ArrayList<UUID> messages = getVisibleSenderMessages();
-        return getChatHeadsList(messages);
+        return getChatHeadsList(s -> s.visible > 0);
     }
 
     /**
@@ -219,29 +1198,46 @@ public class MessageManager implements Serializable {
      * @return list of String usernames that current user has archived messages with.
      */
     public ArrayList<String> getSenderArchivedConversations(){
-        ArrayList<UUID> messages = getArchivedSenderMessages();
-        return getChatHeadsList(messages);
+        return getChatHeadsList(s -> s.archived > 0);
     }
 
+    /**
+     * Generates a list of current user's chat partners with unread messages.
+     *
+     * @return list of String usernames that current user has unarchived unread messages from.
+     */
     public ArrayList<String> getSenderUnreadConversations(){
-        ArrayList<UUID> messages = getUnreadSenderMessages();
-        return getChatHeadsList(messages);
+        return getChatHeadsList(s -> s.unread > 0);
     }
 
     /**
-     * Helper method, generates a list of message IDs that a given user has participated in,
+     * Checks if current user has an unarchived conversation with given user.
      *
-     * @param otherID - username of chat partner
-     * @param conversation - list of messages that current user has participated in
-     * @return list of message IDs from given list that the given chat partner has participated in.
+     * @param otherID - username of the conversation partner.
+     * @return true if current user has unarchived messages with the partner, false if not.
      */
-    private ArrayList<UUID> getSingleConversationHelper(String otherID, ArrayList<UUID> conversation){
-        ArrayList<UUID> singleConversation = new ArrayList<>();
-        for (UUID i: conversation){
-            if (otherID.equals(getMessage(i).getReceiver()) || otherID.equals(getMessage(i).getSender())) {
-                singleConversation.add(i);
-            }
-        } return singleConversation;
+    public boolean hasConversation(String otherID){
+        return hasConversation(otherID, s -> s.visible > 0);
+    }
+
+    /**
+     * Checks if current user has an archived conversation with given user.
+     *
+     * @param otherID - username of the conversation partner.
+     * @return true if current user has archived messages with the partner, false if not.
+     */
+    public boolean hasArchivedConversation(String otherID){
+        return hasConversation(otherID, s -> s.archived > 0);
+    }
+
+    /**
+     * Checks if current user has unread messages from given user.
+     *
+     * @param otherID - username of the conversation partner.
+     * @return true if current user has unarchived unread messages from the partner, false if not.
+     */
+    public boolean hasUnreadConversation(String otherID){
+        return hasConversation(otherID, s -> s.unread > 0);
     }
 
     /**
@@ -254,8 +1250,13 @@ public class MessageManager implements Serializable {
      * @return list of UUID message IDs.
      */
     public ArrayList<UUID> getSingleConversationByReceiver(String otherID){
-        ArrayList<UUID> conversation = getVisibleSenderMessages();
-        return getSingleConversationHelper(otherID, conversation);
+        ArrayList<UUID> singleConversation = new ArrayList<>();
+        for (StoredMessage m: getConversation(senderID, otherID)){
+            if (m.isVisibleTo(senderID)) {
+                singleConversation.add(m.getId());
+            }
+        }
+        return singleConversation;
     }
 
     /**
@@ -266,8 +1267,63 @@ public class MessageManager implements Serializable {
      * @return list of UUID message IDs
      */
     public ArrayList<UUID> getArchivedConversationByReceiver(String otherID){
-        ArrayList<UUID> conversation = getArchivedSenderMessages();
-        return getSingleConversationHelper(otherID, conversation);
+        ArrayList<UUID> singleConversation = new ArrayList<>();
+        for (StoredMessage m: getConversation(senderID, otherID)){
+            if (m.isArchivedBy(senderID)){
+                singleConversation.add(m.getId());
+            }
+        }
+        return singleConversation;
+    }
+
+    /**
+     * Return one page of the unarchived message history between the current user of the program and a given
+     * user. Pages are read backwards from the newest message, so the first page holds the latest messages.
+     *
+     * @param otherID - Username of the other user.
+     * @param cursor - ID of the oldest message of the previous page, or null to start from the newest message.
+     * @param limit - maximum number of messages in the page.
+     * @return list of up to limit UUID message IDs older than the cursor, sorted by time.
+     */
+    public ArrayList<UUID> getConversationPage(String otherID, UUID cursor, int limit){
+        NavigableSet<StoredMessage> conversation = getConversation(senderID, otherID);
+        if (cursor != null) {
+            StoredMessage cursorMessage = getMessage(cursor);
+            if (cursorMessage == null) {
+                return new ArrayList<>();
+            }
+            conversation = conversation.headSet(cursorMessage, false);
+        }
+        LinkedList<UUID> page = new LinkedList<>();
+        Iterator<StoredMessage> newestFirst = conversation.descendingIterator();
+        while (page.size() < limit && newestFirst.hasNext()) {
+            StoredMessage m = newestFirst.next();
+            if (m.isVisibleTo(senderID)) {
+                page.addFirst(m.getId());
+            }
+        }
+        return new ArrayList<>(page);
+    }
+
+    /**
+     * Checks if the unarchived message history between the current user of the program and a given user holds
+     * messages older than a given message, such as the oldest message of a page.
+     *
+     * @param otherID - Username of the other user.
+     * @param messageID - ID of a message of the conversation.
+     * @return true if the current user can see a message of the conversation older than the given one, false if not.
+     */
+    public boolean hasOlderMessages(String otherID, UUID messageID){
+        StoredMessage message = getMessage(messageID);
+        if (message == null) {
+            return false;
+        }
+        for (StoredMessage m : getConversation(senderID, otherID).headSet(message, false)) {
+            if (m.isVisibleTo(senderID)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -276,12 +1332,14 @@ public class MessageManager implements Serializable {
      * @param messageID - UUID of the message to be archived.
      */
     public void archiveSingleMessage(UUID messageID){
-        if (isSender(messageID)) {
-            getMessage(messageID).markAsSenderArchive();
+        StoredMessage message = getMessage(messageID);
+        if (senderID.equals(message.getSender())) {
+            updateFlags(message, StoredMessage::markAsSenderArchive);
         }
-        else if (isReceiver(messageID)){
-            getMessage(messageID).markAsReceiverArchive();
+        else if (senderID.equals(message.getReceiver())){
+            updateFlags(message, StoredMessage::markAsReceiverArchive);
         }
+        markChanged(messageID);
     }
 
     /**
@@ -303,12 +1361,14 @@ public class MessageManager implements Serializable {
      * @param messageID - UUID of the message to be archived.
      */
     public void unArchiveSingleMessage(UUID messageID){
-        if (isSender(messageID)) {
-            getMessage(messageID).unMarkAsSenderArchive();
+        StoredMessage message = getMessage(messageID);
+        if (senderID.equals(message.getSender())) {
+            updateFlags(message, StoredMessage::unMarkAsSenderArchive);
         }
-        else if (isReceiver(messageID)){
-            getMessage(messageID).unMarkAsReceiverArchive();
+        else if (senderID.equals(message.getReceiver())){
+            updateFlags(message, StoredMessage::unMarkAsReceiverArchive);
         }
+        markChanged(messageID);
     }
 
     /**
@@ -330,12 +1390,13 @@ public class MessageManager implements Serializable {
      * @param messageID - UUID of the message to be deleted.
      */
     public void deleteSingleMessage(UUID messageID){
-        Message toBeDeleted = getMessage(messageID);
-        if (isSender(messageID)) {
-            toBeDeleted.markAsSenderDeleted();
-        } else if (isReceiver(messageID)) {
-            toBeDeleted.markAsReceiverDeleted();
+        StoredMessage toBeDeleted = getMessage(messageID);
+        if (senderID.equals(toBeDeleted.getSender())) {
+            updateFlags(toBeDeleted, StoredMessage::markAsSenderDeleted);
+        } else if (senderID.equals(toBeDeleted.getReceiver())) {
+            updateFlags(toBeDeleted, StoredMessage::markAsReceiverDeleted);
         }
+        markChanged(messageID);
         sendToDeletedBin(toBeDeleted);
 
     }
@@ -350,7 +1411,55 @@ public class MessageManager implements Serializable {
         if (toBeDeleted.isDeletedBySender()&&toBeDeleted.isDeletedByReceiver()) {
             UUID fullyDeletedID = toBeDeleted.getId();
             Message fullyDeleted = systemMessages.remove(fullyDeletedID);
+            if (fullyDeleted == null) {
+                return;
+            }
+            removeFromIndexes(new StoredMessage(fullyDeleted));
             deletedMessages.put(fullyDeletedID, fullyDeleted);
+            markChanged(fullyDeletedID);
+        }
+    }
+
+    /**
+     * Checks if both users have deleted a message. If so, move message from
+     * system messages or its broadcast to deleted messages.
+     *
+     * @param toBeDeleted - Message or copy of a broadcast to be checked for full deletion.
+     */
+    private void sendToDeletedBin(StoredMessage toBeDeleted){
+        if (toBeDeleted.message != null) {
+            sendToDeletedBin(toBeDeleted.message);
+        } else if (toBeDeleted.isDeletedBySender()&&toBeDeleted.isDeletedByReceiver()) {
+            // The copy becomes a Message of its own, so the deleted messages only ever hold Messages
+            Broadcast broadcast = toBeDeleted.broadcast;
+            Message fullyDeleted = broadcast.toMessage(toBeDeleted.recipient);
+            removeFromIndexes(toBeDeleted);
+            deletedMessages.put(fullyDeleted.getId(), fullyDeleted);
+            markChanged(fullyDeleted.getId());
+            if (broadcast.isFullyDeleted()) {
+                broadcasts.remove(broadcast.getId());
+                markChanged(broadcast.getId());
+            }
+        }
+    }
+
+    /**
+     * Marks a copy of a broadcast as deleted by both its sender and receiver while replaying the journal, once
+     * the copy was recorded as moved to the deleted messages. Removes the broadcast once every copy is gone.
+     *
+     * @param messageID - ID of the copy
+     */
+    private void removeCopyFromBroadcast(UUID messageID) {
+        Broadcast broadcast = broadcasts.get(Broadcast.getBroadcastId(messageID));
+        int recipient = Broadcast.getRecipient(messageID);
+        if (broadcast == null || broadcast.isFullyDeleted(recipient)) {
+            return;
+        }
+        removeFromIndexes(new StoredMessage(broadcast, recipient));
+        broadcast.markAsSenderDeleted(recipient);
+        broadcast.markAsReceiverDeleted(recipient);
+        if (broadcast.isFullyDeleted()) {
+            broadcasts.remove(broadcast.getId());
         }
     }
 
@@ -360,9 +1469,12 @@ public class MessageManager implements Serializable {
      * @param messageID - ID of the message to be deleted
      */
     public void deleteSingleMessageBothSides(UUID messageID){
-        Message toBeDeleted = getMessage(messageID);
-        toBeDeleted.markAsSenderDeleted();
-        toBeDeleted.markAsReceiverDeleted();
+        StoredMessage toBeDeleted = getMessage(messageID);
+        updateFlags(toBeDeleted, m -> {
+            m.markAsSenderDeleted();
+            m.markAsReceiverDeleted();
+        });
+        markChanged(messageID);
         sendToDeletedBin(toBeDeleted);
     }
 
@@ -449,6 +1561,8 @@ public class MessageManager implements Serializable {
      */
     public void emptyDeletedMessages(){
         deletedMessages.clear();
+        version++;
+        deletedMessagesCleared = true;
     }
 
     /**
@@ -458,11 +1572,7 @@ public class MessageManager implements Serializable {
      * @return true if message archived by user, false if not.
      */
     public boolean isMessageArchived(UUID messageID){
-        if (isSender(messageID)) {
-            return getMessage(messageID).isArchivedBySender();
-        } else {
-            return getMessage(messageID).isArchivedByReceiver();
-        }
+        return getMessage(messageID).isArchivedBy(senderID);
     }
 
     /**
@@ -472,11 +1582,7 @@ public class MessageManager implements Serializable {
      * @return true if message deleted by user, false if not.
      */
     public boolean isMessageDeleted(UUID messageID){
-        if (isSender(messageID)){
-            return getMessage(messageID).isDeletedBySender();
-        } else{
-            return getMessage(messageID).isDeletedByReceiver();
-        }
+        return getMessage(messageID).isDeletedBy(senderID);
     }
 
     /**
@@ -485,9 +1591,21 @@ public class MessageManager implements Serializable {
      * @param otherID - username of chat partner
      */
     public void markConversationAsRead(String otherID){
-        ArrayList<UUID> conversation = getSingleConversationHelper(otherID, getUnreadSenderMessages());
-        for (UUID i: conversation){
-            getMessage(i).markAsRead();
+        markMessagesAsRead(getSingleConversationByReceiver(otherID));
+    }
+
+    /**
+     * Marks the given messages as read, if current user received them and has not read them yet.
+     *
+     * @param messageIDs - list of UUID of messages, such as a page of a conversation that was shown to the user
+     */
+    public void markMessagesAsRead(List<UUID> messageIDs){
+        for (UUID i: messageIDs){
+            StoredMessage message = getMessage(i);
+            if (senderID.equals(message.getReceiver()) && !message.isReadStatus()) {
+                updateFlags(message, StoredMessage::markAsRead);
+                markChanged(i);
+            }
         }
     }
 
@@ -499,13 +1617,14 @@ public class MessageManager implements Serializable {
      * unarchived conversation with current user or user is not a recipient in the conversation.
      */
     public boolean markConversationAsUnread(String otherID){
-        if (!getSenderConversations().contains(otherID)){
+        if (!hasConversation(otherID)){
             return false;
         }
         ArrayList<UUID> conversation = getSingleConversationByReceiver(otherID);
         UUID someMessage = conversation.get(0);
-        getMessage(someMessage).markAsUnread();
-        return getSenderUnreadConversations().contains(otherID);
+        updateFlags(getMessage(someMessage), StoredMessage::markAsUnread);
+        markChanged(someMessage);
+        return hasUnreadConversation(otherID);
     }
 
     /**
@@ -2,9 +2,14 @@ package UseCase;
 
 import Entity.Room;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -12,11 +17,24 @@ import java.util.TreeMap;
  * A Use Case that deals with how Room entities can be used, and stores a TreeMap of all the currently
  * registered rooms.
  *
+ * The times in a room's schedule never overlap, since a time is only added to a room after checking it for
+ * conflicts. Conflicts are therefore found by looking at the single time that starts last before the period
+ * checked ends.
+ *
  * @author Filip Jovanovic
  */
-public class RoomManager implements Serializable {
+public class RoomManager implements Serializable, Versioned {
+    private static final long serialVersionUID = 5496307106749719173L; // Same as in rooms.ser files saved so far
     private final TreeMap<Integer, Room> roomMap = new TreeMap<>();
 
+    // Number of changes made since this manager was created or read in, not saved
+    private transient long version = 0;
+
+    // Index over the schedules of all rooms, rebuilt after deserialization: start time -> room number -> end time
+    private transient TreeMap<LocalDateTime, HashMap<Integer, LocalDateTime>> bookingsByStart = new TreeMap<>();
+    // The longest time in any schedule so far, which bounds how long before a period a time overlapping it can start
+    private transient Duration longestBooking = Duration.ZERO;
+
     /**
      * Checks if a room exists in roomMap.
      * @param roomNumber the room number
@@ -151,7 +169,11 @@ public class RoomManager implements Serializable {
         Room room = roomBuilder.build();
 
         int roomNumber = room.getRoomNumber();
-        roomMap.put(roomNumber, room);
+        Room oldRoom = roomMap.put(roomNumber, room);
+        if (oldRoom != null)
+            removeFromIndex(roomNumber, oldRoom.getSchedule());
+        addToIndex(roomNumber, room.getSchedule());
+        markChanged();
     }
 
     /**
@@ -171,7 +193,11 @@ public class RoomManager implements Serializable {
      * @param roomNumber the room number
      */
     public void deleteRoom(int roomNumber) {
-        roomMap.remove(roomNumber);
+        Room room = roomMap.remove(roomNumber);
+        if (room != null) {
+            removeFromIndex(roomNumber, room.getSchedule());
+            markChanged();
+        }
     }
 
     /**
@@ -185,15 +211,9 @@ public class RoomManager implements Serializable {
         TreeMap<LocalDateTime, LocalDateTime> schedule = getRoomSchedule(roomNumber);
         LocalDateTime checkEndTime = checkStartTime.plusHours(checkDuration);
 
-        for (Map.Entry<LocalDateTime, LocalDateTime> otherTimeInterval : schedule.entrySet()) {
-            LocalDateTime otherStartTime = otherTimeInterval.getKey();
-            LocalDateTime otherEndTime = otherTimeInterval.getValue();
-
-            if (checkStartTime.isBefore(otherEndTime) && checkEndTime.isAfter(otherStartTime))
-                return true;
-        }
-
-        return false;
+        // Times starting earlier also end earlier, so only the last one starting before checkEndTime can conflict
+        Map.Entry<LocalDateTime, LocalDateTime> otherTimeInterval = schedule.lowerEntry(checkEndTime);
+        return otherTimeInterval != null && checkStartTime.isBefore(otherTimeInterval.getValue());
     }
 
     /**
@@ -203,13 +223,29 @@ public class RoomManager implements Serializable {
      * @return ArrayList of room numbers that are available for the specified period of time
      */
     public ArrayList<Integer> getAvailableRooms(LocalDateTime newStartTime, int duration) {
-        ArrayList<Integer> availableRooms = new ArrayList<>();
+        return getAvailableRooms(newStartTime, newStartTime.plusHours(duration));
+    }
 
-        for (Map.Entry<Integer, Room> rooms : roomMap.entrySet()) {
-            int roomNumber = rooms.getKey();
-            boolean conflictExist = this.hasTimeConflict(roomNumber, newStartTime, duration);
+    /**
+     * Gets the room numbers of all rooms that are free from the start time until the end time.
+     * Only the times in all schedules that start shortly enough before the end time are looked at.
+     * @param startTime the start of the period of time
+     * @param endTime the end of the period of time
+     * @return ArrayList of room numbers in increasing order that are available for the specified period of time
+     */
+    public ArrayList<Integer> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        HashSet<Integer> busyRooms = new HashSet<>();
+        for (HashMap<Integer, LocalDateTime> bookings :
+                bookingsByStart.subMap(startTime.minus(longestBooking), false, endTime, false).values()) {
+            for (Map.Entry<Integer, LocalDateTime> booking : bookings.entrySet()) {
+                if (startTime.isBefore(booking.getValue()))
+                    busyRooms.add(booking.getKey());
+            }
+        }
 
-            if (!conflictExist) {
+        ArrayList<Integer> availableRooms = new ArrayList<>();
+        for (int roomNumber : roomMap.keySet()) {
+            if (!busyRooms.contains(roomNumber)) {
                 availableRooms.add(roomNumber);
             }
         }
@@ -224,8 +260,22 @@ public class RoomManager implements Serializable {
      * @param duration the duration of the period of time
      */
     public void addScheduleTime(int roomNumber, LocalDateTime startTime, int duration) {
+        addScheduleTime(roomNumber, startTime, startTime.plusHours(duration));
+    }
+
+    /**
+     * Add a period of time to the specified room's schedule.
+     * @param roomNumber the room number
+     * @param startTime the start time of the period of time
+     * @param endTime the end time of the period of time
+     */
+    public void addScheduleTime(int roomNumber, LocalDateTime startTime, LocalDateTime endTime) {
         Room room = roomMap.get(roomNumber);
-        room.addToSchedule(startTime, duration);
+        if (room.getSchedule().containsKey(startTime))
+            removeFromIndex(roomNumber, startTime);
+        room.addToSchedule(startTime, endTime);
+        addToIndex(roomNumber, startTime, endTime);
+        markChanged();
     }
 
     /**
@@ -236,6 +286,8 @@ public class RoomManager implements Serializable {
     public void removeScheduleTime(int roomNumber, LocalDateTime startTime) {
         Room room = roomMap.get(roomNumber);
         room.removeFromSchedule(startTime);
+        removeFromIndex(roomNumber, startTime);
+        markChanged();
     }
 
     /**
@@ -260,7 +312,61 @@ public class RoomManager implements Serializable {
         if (schedule.isEmpty())
             return;
 
-        schedule.entrySet().removeIf(entry -> entry.getKey().isBefore(LocalDateTime.now())); // Using predicates
+        TreeMap<LocalDateTime, LocalDateTime> pastTimes = new TreeMap<>(schedule.headMap(LocalDateTime.now()));
+        if (pastTimes.isEmpty())
+            return;
+
+        schedule.keySet().removeAll(pastTimes.keySet());
+        removeFromIndex(roomNumber, pastTimes);
+        markChanged();
+    }
+
+    private void addToIndex(int roomNumber, LocalDateTime startTime, LocalDateTime endTime) {
+        bookingsByStart.computeIfAbsent(startTime, time -> new HashMap<>()).put(roomNumber, endTime);
+        Duration length = Duration.between(startTime, endTime);
+        if (length.compareTo(longestBooking) > 0)
+            longestBooking = length;
+    }
+
+    private void addToIndex(int roomNumber, TreeMap<LocalDateTime, LocalDateTime> schedule) {
+        for (Map.Entry<LocalDateTime, LocalDateTime> time : schedule.entrySet()) {
+            addToIndex(roomNumber, time.getKey(), time.getValue());
+        }
+    }
+
+    private void removeFromIndex(int roomNumber, LocalDateTime startTime) {
+        HashMap<Integer, LocalDateTime> bookings = bookingsByStart.get(startTime);
+        if (bookings != null && bookings.remove(roomNumber) != null && bookings.isEmpty())
+            bookingsByStart.remove(startTime);
+    }
+
+    private void removeFromIndex(int roomNumber, TreeMap<LocalDateTime, LocalDateTime> schedule) {
+        for (LocalDateTime startTime : schedule.keySet()) {
+            removeFromIndex(roomNumber, startTime);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        bookingsByStart = new TreeMap<>();
+        longestBooking = Duration.ZERO;
+        for (Map.Entry<Integer, Room> room : roomMap.entrySet()) {
+            addToIndex(room.getKey(), room.getValue().getSchedule());
+        }
+    }
+
+    /**
+     * Returns the number of changes made since this manager was created or read in.
+     *
+     * @return the version of this manager
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    private void markChanged() {
+        version++;
     }
 }
 
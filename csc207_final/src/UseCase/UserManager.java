@@ -3,22 +3,37 @@ package UseCase;
 
 import Entity.UserAccount;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
 /**
  * A Class that manages UserAccounts by creating new accounts and checking login information
  */
-public class UserManager implements Serializable {
+public class UserManager implements Serializable, Versioned {
+    private static final long serialVersionUID = -8326244760011997335L; // Same as in users.ser files saved so far
 
     private HashMap<String, UserAccount> userMap = new HashMap<>();
 
     // Stores the hash codes of the invitation codes (Strings of length 18)
-    private final ArrayList<Integer> invitationCodes = new ArrayList<>();
+    private ArrayList<Integer> invitationCodes = new ArrayList<>();
 
+    // Number of changes made since this manager was created or read in, not saved
+    private transient long version = 0;
+
+    // Lower case versions of the keys of userMap, rebuilt after deserialization
+    private transient HashSet<String> foldedUsernames = new HashSet<>();
+
+    // Usernames of each type of user in the order they were created, rebuilt after deserialization
+    private transient HashMap<String, LinkedHashSet<String>> usernamesByType = newUsernamesByType();
 
     /**
      * Creates a new user, given the type of user and account information.
@@ -53,6 +68,9 @@ public class UserManager implements Serializable {
             default:
                 throw new IllegalArgumentException("Invalid input: unknown type");
         }
+        foldedUsernames.add(userName.toLowerCase());
+        usernamesByType.get(type).add(userName);
+        markChanged();
     }
 
     /**
@@ -65,12 +83,7 @@ public class UserManager implements Serializable {
      * @return true iff userName entered matches any names in the system, disregarding case
      */
     public boolean isDuplicate(String userName) {
-        for (String key : userMap.keySet()) {
-            if (key.toLowerCase().equals(userName.toLowerCase())){
-                return true;
-            }
-        }
-        return false;
+        return foldedUsernames.contains(userName.toLowerCase());
     }
 
     /**
@@ -90,6 +103,54 @@ public class UserManager implements Serializable {
      */
     public void setUserMap(HashMap<String, UserAccount> userMap) {
         this.userMap = userMap;
+        rebuildIndexes();
+        markChanged();
+    }
+
+    /**
+     * Gets the hash codes of all unused invitation codes.
+     *
+     * @return an ArrayList of invitation code hash codes
+     */
+    public ArrayList<Integer> getInvitationCodes() {
+        return invitationCodes;
+    }
+
+    /**
+     * Sets the hash codes of all unused invitation codes.
+     *
+     * @param invitationCodes - an ArrayList of invitation code hash codes
+     */
+    public void setInvitationCodes(ArrayList<Integer> invitationCodes) {
+        this.invitationCodes = invitationCodes;
+        markChanged();
+    }
+
+    /**
+     * Returns the String instance that this manager stores for a username, so that every manager can share a
+     * single instance per user instead of keeping its own copies. Comparing two shared instances with equals
+     * returns as soon as it sees they are the same object.
+     *
+     * @param username - name of the user
+     * @return the stored instance of username, or username itself if no such user exists
+     */
+    public String internUsername(String username) {
+        UserAccount user = userMap.get(username);
+        if (user == null || !username.equals(user.getUserName())) {
+            return username;
+        }
+        return user.getUserName();
+    }
+
+    /**
+     * Replaces the usernames in every friend list and friend request list with the instances stored by this
+     * manager, such as after the users were read in from a file.
+     */
+    public void internUsernames() {
+        for (UserAccount user : userMap.values()) {
+            user.getFriendList().replaceAll(this::internUsername);
+            user.getFriendRequest().replaceAll(this::internUsername);
+        }
     }
 
     /**
@@ -165,64 +226,68 @@ public class UserManager implements Serializable {
     {
         UserAccount user = userMap.get(username);
         user.registerEvent(eventName);
+        markChanged();
     }
 
     /**
-     * Return a list of speakers' usernames.
+     * Removes this event's name from this user's registered event list.
      *
-     * @return an ArrayList of String representing the usernames of speakers
-     */
-    public ArrayList<String> getSpeakerList(){
-        Set<String> usernames = userMap.keySet();
-        ArrayList<String> speakers = new ArrayList<>();
-        for(int i = 0; i < usernames.size(); i++){
-            if (isOfType((String)usernames.toArray()[i], "Speaker"))
-            speakers.add((String)usernames.toArray()[i]);
-        }
-        return speakers;
+     * @param username - the username of this user
+     * @param eventName - the name of this event
+     * @return true if the event was in the user's registered event list, false otherwise
+     */
+    public boolean removeRegisteredEvent(String username, String eventName)
+    {
+        boolean removed = userMap.get(username).getRegisteredEvents().remove(eventName);
+        if (removed)
+            markChanged();
+        return removed;
     }
+
     /**
-     * Return a list of attendees' usernames.
+     * Return the usernames of all speakers, in the order they were created.
      *
-     * @return an ArrayList of String representing the usernames of speakers
-     */
-    public ArrayList<String> getAttendeeList(){
-        Set<String> usernames = userMap.keySet();
-        ArrayList<String> attendees = new ArrayList<>();
-        for(int i = 0; i < usernames.size(); i++){
-            if (isOfType((String)usernames.toArray()[i], ("Attendee")))
-                attendees.add((String)usernames.toArray()[i]);
-        }
-        return attendees;
+     * @return an unmodifiable view of the usernames of speakers, which reflects users created later
+     */
+    public Set<String> getSpeakerList(){
+        return getUsernamesOfType("Speaker");
     }
+
     /**
-     * Return a list of VIPs' usernames.
+     * Return the usernames of all attendees, in the order they were created.
      *
-     * @return an ArrayList of String representing the usernames of VIP's
-     */
-    public ArrayList<String> getVIPList(){
-        Set<String> usernames = userMap.keySet();
-        ArrayList<String> attendees = new ArrayList<>();
-        for(int i = 0; i < usernames.size(); i++){
-            if (isOfType((String)usernames.toArray()[i], ("VIP")))
-                attendees.add((String)usernames.toArray()[i]);
-        }
-        return attendees;
+     * @return an unmodifiable view of the usernames of attendees, which reflects users created later
+     */
+    public Set<String> getAttendeeList(){
+        return getUsernamesOfType("Attendee");
     }
 
     /**
-     * Return a list of Organizers' usernames.
+     * Return the usernames of all VIPs, in the order they were created.
      *
-     * @return an ArrayList of String representing the usernames of organizers
-     */
-    public ArrayList<String> getOrganizerList(){
-        Set<String> usernames = userMap.keySet();
-        ArrayList<String> attendees = new ArrayList<>();
-        for(int i = 0; i < usernames.size(); i++){
-            if (isOfType((String)usernames.toArray()[i], ("Organizer")))
-                attendees.add((String)usernames.toArray()[i]);
-        }
-        return attendees;
+     * @return an unmodifiable view of the usernames of VIPs, which reflects users created later
+     */
+    public Set<String> getVIPList(){
+        return getUsernamesOfType("VIP");
+    }
+
+    /**
+     * Return the usernames of all organizers, in the order they were created.
+     *
+     * @return an unmodifiable view of the usernames of organizers, which reflects users created later
+     */
+    public Set<String> getOrganizerList(){
+        return getUsernamesOfType("Organizer");
+    }
+
+    /**
+     * Return the usernames of all users of a given type.
+     *
+     * @param type - the type of user, one of "Attendee", "Speaker", "Organizer" or "VIP"
+     * @return an unmodifiable view of the usernames of users of that type
+     */
+    private Set<String> getUsernamesOfType(String type){
+        return Collections.unmodifiableSet(usernamesByType.get(type));
     }
 
     /**
@@ -288,6 +353,7 @@ public class UserManager implements Serializable {
         String invCode = code.toString(); // turns StringBuilder to string
 
         invitationCodes.add(invCode.hashCode());
+        markChanged();
         return invCode;
     }
 
@@ -298,7 +364,11 @@ public class UserManager implements Serializable {
      */
     public boolean checkInvitationCode(String invCode) {
         boolean secretCode = "Lindsey Is Awesome".equals(invCode);
-        return invitationCodes.remove((Object) invCode.hashCode()) || secretCode;
+        if (invitationCodes.remove((Object) invCode.hashCode())) {
+            markChanged();
+            return true;
+        }
+        return secretCode;
     }
 
     /**
@@ -332,9 +402,11 @@ public class UserManager implements Serializable {
         if (!isFriend(username, receiver) && !isFriendRequestSent(username, receiver)){
             if (getUserType(username).equals("VIP")) {
                 getUserByName(receiver).addVIPFriendRequest(username);
-                return true;
             }
-            getUserByName(receiver).addFriendRequest(username);
+            else {
+                getUserByName(receiver).addFriendRequest(username);
+            }
+            markChanged();
             return true;
         }
         else {
@@ -358,6 +430,7 @@ public class UserManager implements Serializable {
             getUserByName(username).addFriend(receiver);
         }
         getUserByName(username).removeFriendRequest(receiver);
+        markChanged();
     }
     /**
      * Gets the friend list of username
@@ -379,5 +452,55 @@ public class UserManager implements Serializable {
         return getUserByName(username).getFriendRequest();
     }
 
+    /**
+     * Returns the number of changes made since this manager was created or read in.
+     *
+     * @return the version of this manager
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    private void markChanged() {
+        version++;
+    }
+
+    /**
+     * Rebuilds the lower case usernames and the usernames of each type of user from userMap.
+     */
+    private void rebuildIndexes() {
+        foldedUsernames = new HashSet<>();
+        if (usernamesByType == null) {
+            usernamesByType = newUsernamesByType();
+        }
+        for (LinkedHashSet<String> usernames : usernamesByType.values()) {
+            usernames.clear();
+        }
+        for (Map.Entry<String, UserAccount> user : userMap.entrySet()) {
+            foldedUsernames.add(user.getKey().toLowerCase());
+            usernamesByType.get(user.getValue().getUserType()).add(user.getKey());
+        }
+    }
+
+    /**
+     * Creates an empty set of usernames for every type of user. The sets are only ever cleared and refilled,
+     * so that views of them stay valid as users are created or replaced.
+     *
+     * @return a HashMap from each type of user to an empty set of usernames
+     */
+    private static HashMap<String, LinkedHashSet<String>> newUsernamesByType() {
+        HashMap<String, LinkedHashSet<String>> usernamesByType = new HashMap<>();
+        for (String type : new String[] {"Attendee", "Speaker", "Organizer", "VIP"}) {
+            usernamesByType.put(type, new LinkedHashSet<>());
+        }
+        return usernamesByType;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildIndexes();
+    }
+
 }
 
@@ -0,0 +1,9 @@
+package UseCase;
+
+/**
+ * Interface for use cases that count the changes made to them, so that saving can be skipped when nothing changed.
+ */
+public interface Versioned {
+    // Returns the number of changes made to this use case, which increases with every change
+    long getVersion();
+}
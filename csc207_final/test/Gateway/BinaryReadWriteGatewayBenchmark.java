@@ -0,0 +1,149 @@
+package Gateway;
+
+import UseCase.MessageManager;
+import UseCase.UserManager;
+
+import java.io.*;
+import java.util.Random;
+
+/**
+ * Compares saving and loading the users and messages files with the Java serialization of the first version of
+ * ReadWriteGateway, which went through unbuffered streams, with BinaryReadWriteGateway writing plain and GZIP
+ * compressed files.
+ *
+ * Every way is checked to load back all users and messages. Run from the csc207_final folder with a large heap, for
+ * example java -Xmx2g. The optional arguments are the number of messages (200,000 by default), the number of users
+ * (20,000 by default) and the folder to write the files to (the system temporary folder by default).
+ */
+public class BinaryReadWriteGatewayBenchmark {
+    private static final String[] WORDS = ("the a to and of is in for on with at this that you we meeting talk " +
+            "event room time schedule see there tomorrow today thanks please can will be are keynote speaker " +
+            "question about slides conference morning afternoon lunch after before hello hi sure great").split(" ");
+    private static final String[] TYPES = {"Attendee", "Speaker", "VIP", "Organizer"};
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int messageCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        String folder = args.length > 2 ? args[2] : System.getProperty("java.io.tmpdir");
+        Random random = new Random(207);
+
+        UserManager userManager = new UserManager();
+        for (int i = 0; i < userCount; i++) {
+            userManager.createUser("user" + i, "password" + random.nextInt(1_000_000), TYPES[random.nextInt(4)]);
+        }
+        for (int i = 0; i < userCount; i++) {
+            for (int k = 0; k < 5; k++) {
+                userManager.addFriend("user" + i, "user" + random.nextInt(userCount), true);
+                userManager.addRegisteredEvent("user" + i, "event" + random.nextInt(1000));
+            }
+        }
+
+        MessageManager messageManager = new MessageManager();
+        for (int i = 0; i < messageCount; i++) {
+            messageManager.setSenderID("user" + random.nextInt(userCount));
+            messageManager.createMessage("user" + random.nextInt(userCount), sentence(random));
+        }
+
+        Result[] users = {
+                measure(new UnbufferedGateway(), folder + "/users-unbuffered.ser", userManager),
+                measure(new BinaryReadWriteGateway(), folder + "/users-binary.ser", userManager),
+                measure(new BinaryReadWriteGateway(true), folder + "/users-compressed.ser", userManager)};
+        Result[] messages = {
+                measure(new UnbufferedGateway(), folder + "/messages-unbuffered.ser", messageManager),
+                measure(new BinaryReadWriteGateway(), folder + "/messages-binary.ser", messageManager),
+                measure(new BinaryReadWriteGateway(true), folder + "/messages-compressed.ser", messageManager)};
+
+        String[] names = {"Java serialization, unbuffered", "binary", "binary, GZIP"};
+        print(userCount + " users", names, users);
+        print(messageCount + " messages", names, messages);
+    }
+
+    private static Result measure(ReadWrite gateway, String filepath, Object data) throws Exception {
+        Result result = new Result();
+        result.saveNanos = Long.MAX_VALUE;
+        result.loadNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            gateway.saveToFile(filepath, data);
+            result.saveNanos = Math.min(result.saveNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            Object loaded = gateway.readFromFile(filepath);
+            result.loadNanos = Math.min(result.loadNanos, System.nanoTime() - start);
+            if (data instanceof UserManager) {
+                check(((UserManager) loaded).getUserMap().size() == ((UserManager) data).getUserMap().size(),
+                        filepath + " lost users");
+            } else {
+                check(((MessageManager) loaded).getSystemMessages().size()
+                        == ((MessageManager) data).getSystemMessages().size(), filepath + " lost messages");
+            }
+        }
+        File file = new File(filepath);
+        result.bytes = file.length();
+        file.delete();
+        return result;
+    }
+
+    private static void print(String title, String[] names, Result[] results) {
+        System.out.println(title);
+        for (int i = 0; i < results.length; i++) {
+            System.out.printf("  %-31s save %6d ms, load %6d ms, %7.2f MB  (load %4.1fx, size %4.1fx smaller)%n",
+                    names[i], results[i].saveNanos / 1_000_000, results[i].loadNanos / 1_000_000,
+                    results[i].bytes / 1e6, (double) results[0].loadNanos / results[i].loadNanos,
+                    (double) results[0].bytes / results[i].bytes);
+        }
+    }
+
+    private static String sentence(Random random) {
+        StringBuilder sentence = new StringBuilder();
+        int words = 3 + random.nextInt(15);
+        for (int i = 0; i < words; i++) {
+            sentence.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+
+    /**
+     * The best save and load times of one way of writing a file, and the size of the file.
+     */
+    private static class Result {
+        private long saveNanos;
+        private long loadNanos;
+        private long bytes;
+    }
+
+    /**
+     * Reads and writes files the way the first version of ReadWriteGateway did, through unbuffered streams.
+     */
+    private static class UnbufferedGateway implements ReadWrite {
+        @Override
+        public Object readFromFile(String filepath) throws ClassNotFoundException, IOException {
+            try (ObjectInputStream input = new ObjectInputStream(new FileInputStream(filepath))) {
+                return input.readObject();
+            }
+        }
+
+        @Override
+        public void saveToFile(String filepath, Object data) throws IOException {
+            try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(filepath))) {
+                output.writeObject(data);
+            }
+        }
+
+        @Override
+        public byte[] toBytes(Object data) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+                output.writeObject(data);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package Gateway;
+
+import UseCase.MessageManager;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares the heap a large message history retains with every message content in memory, as before, and after the
+ * contents are moved to a MappedMessageContentStore. A sample of messages is read back through the store and checked
+ * against the contents that were created.
+ *
+ * Run from the csc207_final folder with a large heap, for example java -Xmx2g. The optional arguments are the number
+ * of messages (200,000 by default), the length of each content (500 characters by default) and the folder to write
+ * the store files to (the system temporary folder by default).
+ */
+public class MessageContentStoreBenchmark {
+    private static final int SAMPLES = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int messageCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int contentLength = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        String folder = args.length > 2 ? args[2] : System.getProperty("java.io.tmpdir");
+        Random random = new Random(207);
+
+        long emptyHeap = usedHeap();
+        MessageManager messageManager = new MessageManager();
+        for (int i = 0; i < messageCount; i++) {
+            messageManager.setSenderID("user" + random.nextInt(500));
+            messageManager.createMessage("user" + random.nextInt(500), content(random, contentLength));
+        }
+        HashMap<UUID, String> samples = new HashMap<>();
+        for (UUID id : messageManager.getSystemMessages().keySet()) {
+            if (samples.size() == SAMPLES)
+                break;
+            samples.put(id, messageManager.getMessageContent(id));
+        }
+        long inMemoryHeap = usedHeap() - emptyHeap;
+
+        String contentPath = new File(folder, "benchmark.content").getPath();
+        File headerFile = new File(contentPath + ".idx");
+        File contentFile = new File(contentPath + ".dat");
+        headerFile.delete();
+        contentFile.delete();
+        try (MappedMessageContentStore contentStore = new MappedMessageContentStore(contentPath)) {
+            messageManager.setContentStore(contentStore);
+            long storedHeap = usedHeap() - emptyHeap;
+
+            check(messageManager.getSystemMessages().size() == messageCount, "messages were lost");
+            for (Map.Entry<UUID, String> sample : samples.entrySet()) {
+                check(sample.getValue().equals(messageManager.getMessageView(sample.getKey()).getContent()),
+                        "a content read back from the store does not match");
+            }
+
+            System.out.printf("%d messages of %d characters%n", messageCount, contentLength);
+            System.out.printf("contents in memory: %7.1f MB retained%n", inMemoryHeap / 1e6);
+            System.out.printf("content store:      %7.1f MB retained, %7.1f MB in the store files%n",
+                    storedHeap / 1e6, (headerFile.length() + contentFile.length()) / 1e6);
+        }
+        headerFile.delete();
+        contentFile.delete();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String content(Random random, int length) {
+        StringBuilder content = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            content.append((char) ('a' + random.nextInt(26)));
+        }
+        return content.toString();
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
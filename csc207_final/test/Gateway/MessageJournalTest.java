@@ -0,0 +1,264 @@
+package Gateway;
+
+import Entity.Broadcast;
+import Entity.Message;
+import UseCase.MessageManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Runs random message actions and compares MessageManager with a brute-force recount over every stored message,
+ * and the message files written through a JournalReadWriteGateway with the MessageManager they were saved from.
+ *
+ * The recount checks the visible, archived and unread conversations and the unread counts of every user. The files
+ * are read back after every save, and once more after the last batch of the journal was cut off as if the program
+ * crashed while writing it, which must give the state of the save before. The copies of a broadcast are checked to
+ * keep their own flags, and a fully deleted copy to stay gone after the deleted messages are emptied.
+ *
+ * Run from the csc207_final folder. The optional argument is the number of random actions (3,000 by default).
+ */
+public class MessageJournalTest {
+    private static final String[] USERS = {"u0", "u1", "u2", "u3", "u4", "u5", "u6", "u7"};
+    private static final String[] BROADCAST_USERS = {"org", "a1", "a2", "a3"};
+    private static final int ACTIONS_PER_SAVE = 100;
+
+    public static void main(String[] args) throws Exception {
+        int actionCount = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        File folder = Files.createTempDirectory("journal").toFile();
+        try {
+            checkRandomActions(actionCount, new File(folder, "random.ser").getPath());
+            checkBroadcastCopies(new File(folder, "broadcast.ser").getPath());
+        } finally {
+            for (File file : Objects.requireNonNull(folder.listFiles())) {
+                file.delete();
+            }
+            folder.delete();
+        }
+        System.out.println("MessageManager matched the recount and its journal after " + actionCount + " actions.");
+    }
+
+    private static void checkRandomActions(int actionCount, String filepath) throws Exception {
+        Random random = new Random(207);
+        MessageManager messageManager = new MessageManager();
+        JournalReadWriteGateway gateway = new JournalReadWriteGateway(new BinaryReadWriteGateway(), 64L * 1024 * 1024);
+        gateway.saveToFile(filepath, messageManager);
+        String saved = describe(messageManager);
+
+        for (int action = 1; action <= actionCount; action++) {
+            doRandomAction(messageManager, random, action);
+            if (action % ACTIONS_PER_SAVE == 0) {
+                checkRecount(messageManager, USERS, "after action " + action);
+                gateway.saveToFile(filepath, messageManager);
+                saved = describe(messageManager);
+                check(saved.equals(describe(read(filepath))), "the journal differs after action " + action);
+            }
+        }
+
+        for (int action = 1; action <= ACTIONS_PER_SAVE; action++) {
+            doRandomAction(messageManager, random, actionCount + action);
+        }
+        long journalLength = new File(filepath + ".journal").length();
+        gateway.saveToFile(filepath, messageManager);
+        File journal = new File(filepath + ".journal");
+        check(journal.length() > journalLength, "the last save did not append to the journal");
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        MessageManager recovered = read(filepath);
+        check(saved.equals(describe(recovered)), "a journal cut off in its last batch was not replayed up to it");
+        checkRecount(recovered, USERS, "after the cut off journal");
+    }
+
+    private static void doRandomAction(MessageManager messageManager, Random random, int action) {
+        String other = USERS[random.nextInt(USERS.length)];
+        messageManager.setSenderID(USERS[random.nextInt(USERS.length)]);
+        ArrayList<UUID> conversation = messageManager.getSingleConversationByReceiver(other);
+        ArrayList<UUID> archived = messageManager.getArchivedConversationByReceiver(other);
+        switch (random.nextInt(13)) {
+            case 0: case 1:
+                messageManager.createMessage(other, "message " + action);
+                break;
+            case 2:
+                messageManager.createMessages(Arrays.asList(USERS[random.nextInt(USERS.length)],
+                        USERS[random.nextInt(USERS.length)], other), "broadcast " + action);
+                break;
+            case 3:
+                messageManager.markConversationAsRead(other);
+                break;
+            case 4:
+                messageManager.markConversationAsUnread(other);
+                break;
+            case 5:
+                messageManager.archiveConversation(other);
+                break;
+            case 6:
+                messageManager.unArchiveConversation(other);
+                break;
+            case 7:
+                if (!conversation.isEmpty())
+                    messageManager.deleteSingleMessage(conversation.get(random.nextInt(conversation.size())));
+                break;
+            case 8:
+                if (!conversation.isEmpty())
+                    messageManager.deleteSingleMessageBothSides(conversation.get(random.nextInt(conversation.size())));
+                break;
+            case 9:
+                if (!archived.isEmpty())
+                    messageManager.unArchiveSingleMessage(archived.get(random.nextInt(archived.size())));
+                break;
+            case 10:
+                messageManager.deleteArchivedConversation(other);
+                break;
+            case 11:
+                messageManager.deleteConversationBothSides(other);
+                break;
+            default:
+                messageManager.emptyDeletedMessages();
+        }
+    }
+
+    private static void checkBroadcastCopies(String filepath) throws Exception {
+        MessageManager messageManager = new MessageManager();
+        JournalReadWriteGateway gateway = new JournalReadWriteGateway(new BinaryReadWriteGateway(), 64L * 1024 * 1024);
+        gateway.saveToFile(filepath, messageManager);
+        messageManager.setSenderID("org");
+        messageManager.createMessages(Arrays.asList("a1", "a2", "a3"), "welcome");
+        check(messageManager.getBroadcasts().size() == 1, "a message to several users was not kept as a broadcast");
+        gateway.saveToFile(filepath, messageManager);
+
+        messageManager.setSenderID("a1");
+        messageManager.markConversationAsRead("org");
+        messageManager.setSenderID("a2");
+        check(messageManager.hasUnreadConversation("org"), "reading one copy marked another copy as read");
+        messageManager.archiveConversation("org");
+        messageManager.setSenderID("a1");
+        check(messageManager.hasConversation("org"), "archiving one copy archived another copy");
+        messageManager.setSenderID("a3");
+        messageManager.deleteConversation("org");
+        messageManager.setSenderID("org");
+        check(messageManager.hasConversation("a3"), "the receiver deleting a copy deleted it for the sender");
+        messageManager.deleteConversation("a3");
+        check(!messageManager.hasConversation("a3"), "the sender still sees a copy it deleted");
+        check(messageManager.getFullyDeletedMessagesByUser("a3").size() == 1,
+                "a copy deleted by both sides did not move to the deleted messages");
+        checkRecount(messageManager, BROADCAST_USERS, "after deleting a copy");
+        gateway.saveToFile(filepath, messageManager);
+        check(describe(messageManager).equals(describe(read(filepath))), "the journal lost the copy flags");
+
+        messageManager.emptyDeletedMessages();
+        check(messageManager.getDeletedMessages().isEmpty(), "the deleted messages were not emptied");
+        gateway.saveToFile(filepath, messageManager);
+        MessageManager replayed = read(filepath);
+        check(describe(messageManager).equals(describe(replayed)), "the journal differs after emptying");
+        check(replayed.getDeletedMessages().isEmpty(), "the journal brought back an emptied copy");
+        for (String user : new String[]{"org", "a3"}) {
+            replayed.setSenderID(user);
+            check(!replayed.hasConversation(user.equals("org") ? "a3" : "org")
+                    && !replayed.hasArchivedConversation(user.equals("org") ? "a3" : "org"),
+                    user + " still sees an emptied copy");
+        }
+        checkRecount(replayed, BROADCAST_USERS, "after emptying the deleted messages");
+
+        messageManager.setSenderID("org");
+        messageManager.deleteConversationBothSides("a1");
+        messageManager.setSenderID("a2");
+        messageManager.deleteArchivedConversationBothSides("org");
+        check(messageManager.getBroadcasts().isEmpty(), "a broadcast with every copy deleted was kept");
+        gateway.saveToFile(filepath, messageManager);
+        check(read(filepath).getBroadcasts().isEmpty(), "the journal kept a broadcast with every copy deleted");
+    }
+
+    /**
+     * Recounts the conversations and unread messages of the given users from the stored messages and checks that
+     * messageManager gives the same. Leaves the last of the users as the current user of messageManager.
+     */
+    private static void checkRecount(MessageManager messageManager, String[] users, String when) {
+        List<Message> messages = allMessages(messageManager);
+        for (String user : users) {
+            Set<String> visible = new HashSet<>();
+            Set<String> archived = new HashSet<>();
+            Set<String> unread = new HashSet<>();
+            Set<UUID> unreadMessages = new HashSet<>();
+            for (Message m : messages) {
+                boolean isSender = user.equals(m.getSender());
+                boolean isReceiver = user.equals(m.getReceiver());
+                if (!isSender && !isReceiver)
+                    continue;
+                String other = isSender ? m.getReceiver() : m.getSender();
+                if (isSender ? m.isArchivedBySender() : m.isArchivedByReceiver()) {
+                    archived.add(other);
+                } else if (!(isSender ? m.isDeletedBySender() : m.isDeletedByReceiver())) {
+                    visible.add(other);
+                    if (isReceiver && !m.isReadStatus()) {
+                        unread.add(other);
+                        unreadMessages.add(m.getId());
+                    }
+                }
+            }
+
+            messageManager.setSenderID(user);
+            String failure = " of " + user + " differ from the recount " + when;
+            check(new HashSet<>(messageManager.getSenderConversations()).equals(visible), "conversations" + failure);
+            check(new HashSet<>(messageManager.getSenderArchivedConversations()).equals(archived),
+                    "archived conversations" + failure);
+            check(new HashSet<>(messageManager.getSenderUnreadConversations()).equals(unread),
+                    "unread conversations" + failure);
+            check(messageManager.getUnreadConversationCount() == unread.size(), "unread conversation count" + failure);
+            check(messageManager.getUnreadMessageCount() == unreadMessages.size(), "unread message count" + failure);
+            ArrayList<UUID> unreadSenderMessages = messageManager.getUnreadSenderMessages();
+            check(unreadSenderMessages.size() == unreadMessages.size()
+                    && new HashSet<>(unreadSenderMessages).equals(unreadMessages), "unread messages" + failure);
+            for (String other : users) {
+                check(messageManager.hasConversation(other) == visible.contains(other)
+                        && messageManager.hasArchivedConversation(other) == archived.contains(other)
+                        && messageManager.hasUnreadConversation(other) == unread.contains(other),
+                        "the conversation with " + other + failure);
+            }
+        }
+    }
+
+    /**
+     * @return every message that is still in an inbox, with the copies of broadcasts as Messages of their own
+     */
+    private static List<Message> allMessages(MessageManager messageManager) {
+        List<Message> messages = new ArrayList<>(messageManager.getSystemMessages().values());
+        for (Broadcast b : messageManager.getBroadcasts().values()) {
+            for (int i = 0; i < b.getRecipientCount(); i++) {
+                if (!b.isFullyDeleted(i))
+                    messages.add(b.toMessage(i));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * @return every stored message with its content and flags, and the deleted messages, in a fixed order
+     */
+    private static String describe(MessageManager messageManager) {
+        TreeSet<String> lines = new TreeSet<>();
+        for (Message m : allMessages(messageManager)) {
+            lines.add(m.getId() + " " + m.getSender() + " " + m.getReceiver() + " " + m.getContent() + " "
+                    + m.isReadStatus() + m.isArchivedBySender() + m.isArchivedByReceiver() + m.isDeletedBySender()
+                    + m.isDeletedByReceiver());
+        }
+        for (UUID id : messageManager.getDeletedMessages().keySet()) {
+            lines.add("deleted " + id);
+        }
+        return String.join("\n", lines);
+    }
+
+    private static MessageManager read(String filepath) throws IOException, ClassNotFoundException {
+        return (MessageManager) new JournalReadWriteGateway(new BinaryReadWriteGateway(), 64L * 1024 * 1024)
+                .readFromFile(filepath);
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
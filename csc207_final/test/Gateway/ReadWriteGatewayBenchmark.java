@@ -0,0 +1,103 @@
+package Gateway;
+
+import UseCase.MessageManager;
+
+import java.io.*;
+import java.util.Random;
+
+/**
+ * Compares saving and loading a large messages file with Java serialization through unbuffered streams, as the
+ * first version of ReadWriteGateway did, with the buffered ReadWriteGateway writing plain and GZIP compressed files.
+ *
+ * Every way is checked to load back all messages. Run from the csc207_final folder with a large heap, for example
+ * java -Xmx2g. The optional arguments are the number of messages (200,000 by default) and the folder to write the
+ * files to (the system temporary folder by default).
+ */
+public class ReadWriteGatewayBenchmark {
+    private static final String[] WORDS = ("the a to and of is in for on with at this that you we meeting talk " +
+            "event room time schedule see there tomorrow today thanks please can will be are keynote speaker " +
+            "question about slides conference morning afternoon lunch after before hello hi sure great").split(" ");
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int messageCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String folder = args.length > 1 ? args[1] : System.getProperty("java.io.tmpdir");
+        Random random = new Random(207);
+
+        MessageManager messageManager = new MessageManager();
+        for (int i = 0; i < messageCount; i++) {
+            messageManager.setSenderID("user" + random.nextInt(500));
+            messageManager.createMessage("user" + random.nextInt(500), sentence(random));
+        }
+
+        measure("unbuffered (first version)", new UnbufferedGateway(), folder + "/unbuffered.ser",
+                messageManager);
+        measure("buffered, plain", new ReadWriteGateway(), folder + "/plain.ser", messageManager);
+        measure("buffered, GZIP", new ReadWriteGateway(64 * 1024, true), folder + "/compressed.ser",
+                messageManager);
+    }
+
+    private static void measure(String name, ReadWrite gateway, String filepath, MessageManager messageManager)
+            throws Exception {
+        long saveNanos = Long.MAX_VALUE;
+        long loadNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            gateway.saveToFile(filepath, messageManager);
+            saveNanos = Math.min(saveNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            MessageManager loaded = (MessageManager) gateway.readFromFile(filepath);
+            loadNanos = Math.min(loadNanos, System.nanoTime() - start);
+            check(loaded.getSystemMessages().size() == messageManager.getSystemMessages().size(),
+                    name + " lost messages");
+        }
+        File file = new File(filepath);
+        System.out.printf("%-27s save %6d ms, load %6d ms, %6.2f MB%n", name, saveNanos / 1_000_000,
+                loadNanos / 1_000_000, file.length() / 1e6);
+        file.delete();
+    }
+
+    private static String sentence(Random random) {
+        StringBuilder sentence = new StringBuilder();
+        int words = 3 + random.nextInt(15);
+        for (int i = 0; i < words; i++) {
+            sentence.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+
+    /**
+     * Reads and writes files the way the first version of ReadWriteGateway did, through unbuffered streams.
+     */
+    private static class UnbufferedGateway implements ReadWrite {
+        @Override
+        public Object readFromFile(String filepath) throws ClassNotFoundException, IOException {
+            try (ObjectInputStream input = new ObjectInputStream(new FileInputStream(filepath))) {
+                return input.readObject();
+            }
+        }
+
+        @Override
+        public void saveToFile(String filepath, Object data) throws IOException {
+            try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(filepath))) {
+                output.writeObject(data);
+            }
+        }
+
+        @Override
+        public byte[] toBytes(Object data) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+                output.writeObject(data);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
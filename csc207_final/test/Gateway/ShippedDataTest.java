@@ -0,0 +1,70 @@
+package Gateway;
+
+import UseCase.EventManager;
+import UseCase.MessageManager;
+import UseCase.RoomManager;
+import UseCase.UserManager;
+
+import java.util.UUID;
+
+/**
+ * Checks that the data files shipped with the program can still be read by the current version of the program.
+ *
+ * A class whose serialVersionUID changes makes every file saved before the change unreadable, so this reads each
+ * shipped file with the same gateway the program uses and fails if any of them cannot be read.
+ *
+ * Run from the csc207_final folder, or pass the folder holding the .ser files as the first argument.
+ */
+public class ShippedDataTest {
+    private static final JournalReadWriteGateway readWriteGateway = new JournalReadWriteGateway(
+            new BinaryReadWriteGateway(), 8L * 1024 * 1024);
+
+    public static void main(String[] args) throws Exception {
+        String folder = args.length > 0 ? args[0] : "src";
+
+        UserManager userManager = read(folder + "/users.ser", UserManager.class);
+        check(!userManager.getUserMap().isEmpty(), "users.ser holds no users");
+        for (String username : userManager.getUserMap().keySet()) {
+            check(userManager.isDuplicate(username.toUpperCase()), "the username index was not rebuilt");
+        }
+
+        EventManager eventManager = read(folder + "/events.ser", EventManager.class);
+        check(eventManager.getEventList() != null, "events.ser holds no event list");
+
+        MessageManager messageManager = read(folder + "/messages.ser", MessageManager.class);
+        check(!messageManager.getSystemMessages().isEmpty(), "messages.ser holds no messages");
+        for (UUID messageID : messageManager.getSystemMessages().keySet()) {
+            messageManager.setSenderID(messageManager.getMessageSender(messageID));
+            check(messageManager.getSenderConversations().contains(messageManager.getMessageReceiver(messageID)),
+                    "the conversation index of messages.ser was not rebuilt");
+        }
+
+        RoomManager roomManager = read(folder + "/rooms.ser", RoomManager.class);
+        check(!roomManager.isRoomMapEmpty(), "rooms.ser holds no rooms");
+        for (int roomNumber : roomManager.getRoomNumbers()) {
+            check(roomManager.getRoomSchedule(roomNumber) != null, "a room of rooms.ser holds no schedule");
+        }
+
+        System.out.println("All shipped data files were read.");
+    }
+
+    /**
+     * Reads a file and checks that it holds an Object of the expected class.
+     *
+     * @param filepath - The path of the file to read.
+     * @param type - The class of the Object saved in the file.
+     * @return the Object read from the file.
+     * @throws Exception - If the file cannot be read.
+     */
+    private static <T> T read(String filepath, Class<T> type) throws Exception {
+        Object data = readWriteGateway.readFromFile(filepath);
+        check(type.isInstance(data), filepath + " does not hold a " + type.getSimpleName());
+        return type.cast(data);
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package UseCase;
+
+import Entity.Event;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Times a bulk import of events in random time order into EventManager, and compares it with the way the first
+ * version of addEvent kept the schedule: scan the whole list for duplicates, then copy it into a new list with the
+ * event inserted in time order.
+ *
+ * Both ways are checked to keep the events in the same order. Run from the csc207_final folder. The optional
+ * argument is the number of events (50,000 by default); the first version takes minutes to import that many.
+ */
+public class EventImportBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        Random random = new Random(207);
+        LocalDateTime[] times = new LocalDateTime[eventCount];
+        for (int i = 0; i < eventCount; i++) {
+            times[i] = LocalDateTime.of(2030, 1, 1, 0, 0).plusMinutes(random.nextInt(365 * 24 * 60));
+        }
+
+        long importNanos = Long.MAX_VALUE;
+        EventManager eventManager = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            eventManager = new EventManager();
+            for (int i = 0; i < eventCount; i++) {
+                check(eventManager.addEvent("event" + i, speaker(i), times[i], i % 50, 1, 100),
+                        "event" + i + " was rejected");
+            }
+            importNanos = Math.min(importNanos, System.nanoTime() - start);
+        }
+
+        long start = System.nanoTime();
+        ArrayList<Event> scheduled = new ArrayList<>();
+        for (int i = 0; i < eventCount; i++) {
+            scheduled = scanAndCopyInsert(scheduled, new Event("event" + i, speaker(i), times[i], i % 50, 1, 100));
+        }
+        long copyInsertNanos = System.nanoTime() - start;
+
+        ArrayList<Event> events = eventManager.getEventList();
+        check(events.size() == scheduled.size(), "the schedules have different sizes");
+        for (int i = 0; i < events.size(); i++) {
+            check(events.get(i).getName().equals(scheduled.get(i).getName()), "the schedules differ at " + i);
+        }
+
+        System.out.printf("%d events%n", eventCount);
+        System.out.printf("scan and copy-insert:  %8.1f ms%n", copyInsertNanos / 1e6);
+        System.out.printf("EventManager.addEvent: %8.1f ms%n", importNanos / 1e6);
+    }
+
+    private static ArrayList<String> speaker(int event) {
+        ArrayList<String> speaker = new ArrayList<>();
+        speaker.add("speaker" + event);
+        return speaker;
+    }
+
+    /**
+     * The first version of addEvent, which rejected an event whose name was taken and returned a new list holding
+     * the events in time order.
+     */
+    private static ArrayList<Event> scanAndCopyInsert(ArrayList<Event> eventList, Event newEvent) {
+        for (Event e : eventList) {
+            if (e.getName().equals(newEvent.getName())) {
+                return eventList;
+            }
+        }
+        ArrayList<Event> sortedEvents = new ArrayList<>();
+        boolean added = false;
+        for (Event e : eventList) {
+            if (e.getTime().isAfter(newEvent.getTime()) && !added) {
+                sortedEvents.add(newEvent);
+                added = true;
+            }
+            sortedEvents.add(e);
+        }
+        if (!added) {
+            sortedEvents.add(newEvent);
+        }
+        return sortedEvents;
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
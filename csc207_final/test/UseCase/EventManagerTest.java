@@ -0,0 +1,48 @@
+package UseCase;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Checks which events EventManager.addEvent accepts at the same time.
+ *
+ * Events at the same time only conflict if they share a speaker, so several events without speakers, such as the
+ * ones made for parties and networking, can run at the same time in different rooms.
+ */
+public class EventManagerTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2030, 1, 5, 12, 0);
+
+    public static void main(String[] args) {
+        EventManager eventManager = new EventManager();
+
+        check(eventManager.addEvent("Lunch", new ArrayList<>(), TIME, 1, 1, 50), "the first event was not made");
+        check(eventManager.addEvent("Networking", new ArrayList<>(), TIME, 2, 1, 50),
+                "two events without speakers at the same time conflicted");
+        check(eventManager.getEventList().size() == 2, "an event without speakers was dropped");
+
+        check(eventManager.addEvent("Keynote", speakers("ada"), TIME, 3, 1, 50),
+                "an event conflicted with events without speakers");
+        check(eventManager.addEvent("Panel", speakers("bob", "cy"), TIME, 4, 1, 50),
+                "events with different speakers at the same time conflicted");
+        check(!eventManager.addEvent("Workshop", speakers("cy", "dee"), TIME, 5, 1, 50),
+                "a speaker was booked for two events at the same time");
+        check(eventManager.addEvent("Workshop", speakers("cy", "dee"), TIME.plusHours(1), 5, 1, 50),
+                "a speaker could not give talks at different times");
+        check(!eventManager.addEvent("Lunch", new ArrayList<>(), TIME.plusDays(1), 1, 1, 50),
+                "two events with the same name were made");
+        check(eventManager.getEventList().size() == 5, "the event list does not hold the events that were made");
+
+        System.out.println("All event checks passed.");
+    }
+
+    private static ArrayList<String> speakers(String... names) {
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package UseCase;
+
+import Entity.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares opening an inbox through the per-user message indexes of MessageManager with the full scan of every
+ * message that the first version of MessageManager did for each inbox view.
+ *
+ * Opening an inbox lists the user's chat partners and then shows one conversation. The scan walks every message
+ * in the system, keeps the user's visible messages, sorts them by time and filters them by partner, like the
+ * getMessages, getVisibleSenderMessages and getSingleConversationHelper methods of the first version did. Both
+ * ways are checked to find the same messages and partners.
+ *
+ * Run from the csc207_final folder with a large heap, for example java -Xmx4g. With the defaults it takes about a
+ * minute and a half, most of it spent in the scans. The optional arguments are the number of messages (1,000,000
+ * by default) and the number of users (10,000 by default).
+ */
+public class MessageInboxBenchmark {
+    private static final int QUERIES = 20;
+
+    public static void main(String[] args) {
+        int messageCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        Random random = new Random(207);
+
+        MessageManager messageManager = new MessageManager();
+        for (int i = 0; i < messageCount; i++) {
+            int sender = random.nextInt(userCount);
+            messageManager.setSenderID("user" + sender);
+            messageManager.createMessage("user" + (sender + 1 + random.nextInt(userCount - 1)) % userCount,
+                    "message " + i);
+        }
+        // Archive some messages, so that both ways have to filter them out
+        for (UUID messageID : new ArrayList<>(messageManager.getSystemMessages().keySet())) {
+            if (random.nextInt(10) == 0) {
+                messageManager.setSenderID(messageManager.getMessageSender(messageID));
+                messageManager.archiveSingleMessage(messageID);
+            }
+        }
+
+        String[] users = new String[QUERIES];
+        String[] partners = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            users[i] = "user" + random.nextInt(userCount);
+            messageManager.setSenderID(users[i]);
+            ArrayList<String> conversations = messageManager.getSenderConversations();
+            partners[i] = conversations.isEmpty() ? users[i] : conversations.get(conversations.size() / 2);
+        }
+
+        for (int i = 0; i < QUERIES; i++) {
+            messageManager.setSenderID(users[i]);
+            check(new HashSet<>(messageManager.getSenderConversations())
+                    .equals(new HashSet<>(scanChatHeads(messageManager, users[i]))), "the chat heads differ");
+            check(new HashSet<>(messageManager.getSingleConversationByReceiver(partners[i]))
+                    .equals(new HashSet<>(scanConversation(messageManager, users[i], partners[i]))),
+                    "the conversations differ");
+        }
+
+        long scanNanos = Long.MAX_VALUE;
+        long indexNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                scanChatHeads(messageManager, users[i]);
+                scanConversation(messageManager, users[i], partners[i]);
+            }
+            scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                messageManager.setSenderID(users[i]);
+                messageManager.getSenderConversations();
+                messageManager.getSingleConversationByReceiver(partners[i]);
+            }
+            indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("%,d messages between %,d users, best of 5 rounds of %d inbox views:%n",
+                messageCount, userCount, QUERIES);
+        System.out.printf("full scan: %.3f ms per view%n", scanNanos / 1e6 / QUERIES);
+        System.out.printf("indexes:   %.3f ms per view (%.0fx faster)%n", indexNanos / 1e6 / QUERIES,
+                (double) scanNanos / indexNanos);
+    }
+
+    /**
+     * @return the user's visible messages, sorted by time, found by scanning every message
+     */
+    private static ArrayList<Message> scanVisibleMessages(MessageManager messageManager, String userID) {
+        ArrayList<Message> messages = new ArrayList<>();
+        for (Message m : messageManager.getSystemMessages().values()) {
+            if (m.getSender().equals(userID) ? !m.isArchivedBySender() && !m.isDeletedBySender()
+                    : m.getReceiver().equals(userID) && !m.isArchivedByReceiver() && !m.isDeletedByReceiver()) {
+                messages.add(m);
+            }
+        }
+        Collections.sort(messages);
+        return messages;
+    }
+
+    private static ArrayList<String> scanChatHeads(MessageManager messageManager, String userID) {
+        ArrayList<String> chatHeads = new ArrayList<>();
+        for (Message m : scanVisibleMessages(messageManager, userID)) {
+            String partner = m.getSender().equals(userID) ? m.getReceiver() : m.getSender();
+            if (!chatHeads.contains(partner))
+                chatHeads.add(partner);
+        }
+        return chatHeads;
+    }
+
+    private static ArrayList<UUID> scanConversation(MessageManager messageManager, String userID, String otherID) {
+        ArrayList<UUID> conversation = new ArrayList<>();
+        for (Message m : scanVisibleMessages(messageManager, userID)) {
+            if (m.getSender().equals(otherID) || m.getReceiver().equals(otherID))
+                conversation.add(m.getId());
+        }
+        return conversation;
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
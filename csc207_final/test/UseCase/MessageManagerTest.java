@@ -0,0 +1,115 @@
+package UseCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Checks the order in which MessageManager lists conversations and messages, and how it splits conversations into
+ * pages.
+ *
+ * Lists that are shown to users must come out in the same order every time, also when several conversations or
+ * messages have the same time, such as the copies of a broadcast. A page must only report older messages if the user
+ * can still see some.
+ */
+public class MessageManagerTest {
+
+    public static void main(String[] args) {
+        checkChatHeadOrder();
+        checkUnreadMessageOrder();
+        checkConversationPages();
+
+        System.out.println("All message checks passed.");
+    }
+
+    private static void checkChatHeadOrder() {
+        MessageManager messageManager = new MessageManager();
+        messageManager.setSenderID("org");
+        messageManager.createMessage("yui", "first");
+        List<String> receivers = new ArrayList<>();
+        for (int i = 40; i > 0; i--) {
+            receivers.add("user" + (char) ('a' + i % 26) + i);
+        }
+        messageManager.createMessages(receivers, "welcome");
+
+        ArrayList<String> expected = new ArrayList<>(receivers);
+        expected.sort(String::compareTo);
+        expected.add("yui");
+        check(messageManager.getSenderConversations().equals(expected),
+                "conversations of a broadcast are not in the order of the usernames");
+        check(messageManager.getSenderUnreadConversations().isEmpty(), "a sender has unread conversations");
+
+        messageManager.createMessage("userb1", "later");
+        expected.remove("userb1");
+        expected.add(0, "userb1");
+        check(messageManager.getSenderConversations().equals(expected),
+                "the most recent conversation is not first");
+
+        messageManager.archiveConversation("userc2");
+        messageManager.archiveConversation("usera26");
+        check(messageManager.getSenderArchivedConversations().equals(Arrays.asList("usera26", "userc2")),
+                "archived conversations of a broadcast are not in the order of the usernames");
+    }
+
+    private static void checkUnreadMessageOrder() {
+        MessageManager messageManager = new MessageManager();
+        List<String> senders = Arrays.asList("ann", "bo", "cat", "dan", "eve");
+        List<String> contents = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String sender = senders.get((i * 7) % senders.size());
+            messageManager.setSenderID(sender);
+            if (i % 10 == 9) {
+                messageManager.createMessages(Arrays.asList("org", "other"), "broadcast " + i);
+            } else {
+                messageManager.createMessage("org", "message " + i);
+            }
+            contents.add(i % 10 == 9 ? "broadcast " + i : "message " + i);
+        }
+
+        messageManager.setSenderID("org");
+        ArrayList<UUID> unread = messageManager.getUnreadSenderMessages();
+        check(unread.size() == contents.size(), "unread messages are missing");
+        for (int i = 0; i < unread.size(); i++) {
+            check(messageManager.getMessageContent(unread.get(i)).equals(contents.get(i)),
+                    "unread messages from different senders are not in the order they were sent");
+        }
+
+        messageManager.markConversationAsRead("cat");
+        for (UUID messageID : messageManager.getUnreadSenderMessages()) {
+            check(!messageManager.getMessageSender(messageID).equals("cat"), "a read message is still unread");
+        }
+    }
+
+    private static void checkConversationPages() {
+        MessageManager messageManager = new MessageManager();
+        for (int i = 0; i < 20; i++) {
+            messageManager.setSenderID(i % 2 == 0 ? "ann" : "bo");
+            messageManager.createMessage(i % 2 == 0 ? "bo" : "ann", "message " + i);
+        }
+
+        messageManager.setSenderID("ann");
+        ArrayList<UUID> newest = messageManager.getConversationPage("bo", null, 10);
+        check(newest.size() == 10 && messageManager.getMessageContent(newest.get(0)).equals("message 10"),
+                "the first page does not hold the newest messages");
+        check(messageManager.hasOlderMessages("bo", newest.get(0)), "the first page has no older messages");
+        ArrayList<UUID> oldest = messageManager.getConversationPage("bo", newest.get(0), 10);
+        check(oldest.size() == 10 && messageManager.getMessageContent(oldest.get(0)).equals("message 0"),
+                "the second page does not hold the oldest messages");
+        check(!messageManager.hasOlderMessages("bo", oldest.get(0)), "the last page has older messages");
+
+        messageManager.massDeleteMessages(new ArrayList<>(oldest.subList(0, 5)));
+        ArrayList<UUID> page = messageManager.getConversationPage("bo", newest.get(0), 10);
+        check(page.size() == 5, "deleted messages are on a page");
+        check(!messageManager.hasOlderMessages("bo", page.get(0)), "only deleted messages are older than the page");
+        messageManager.setSenderID("bo");
+        check(messageManager.hasOlderMessages("ann", page.get(0)),
+                "messages deleted by one user are hidden from the other");
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
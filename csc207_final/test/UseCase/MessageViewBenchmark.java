@@ -0,0 +1,101 @@
+package UseCase;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * Compares rendering an inbox through MessageView with rendering it through the accessors of MessageManager that
+ * take a message ID, which look the message up again for every field.
+ *
+ * The inbox holds 50 conversations of 200 messages each, half of them copies of broadcasts. Every conversation is
+ * rendered the way MessagePresenter renders a message, and both ways are checked to produce the same text.
+ *
+ * Run from the csc207_final folder. The optional argument is the number of rounds (60 by default); the fastest
+ * round of each way is reported.
+ */
+public class MessageViewBenchmark {
+    private static final int CONVERSATIONS = 50;
+    private static final int ROUNDS_OF_MESSAGES = 100;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+
+        MessageManager messageManager = new MessageManager();
+        ArrayList<String> partners = new ArrayList<>();
+        for (int i = 0; i < CONVERSATIONS; i++) {
+            partners.add("user" + i);
+        }
+        for (int i = 0; i < ROUNDS_OF_MESSAGES; i++) {
+            messageManager.setSenderID("reader");
+            messageManager.createMessages(partners, "announcement " + i);
+            for (String partner : partners) {
+                messageManager.setSenderID(partner);
+                messageManager.createMessage("reader", "reply " + i + " from " + partner);
+            }
+        }
+
+        messageManager.setSenderID("reader");
+        ArrayList<ArrayList<UUID>> conversations = new ArrayList<>();
+        for (String partner : messageManager.getSenderConversations()) {
+            conversations.add(messageManager.getSingleConversationByReceiver(partner));
+        }
+        check(renderByID(messageManager, conversations).equals(renderByView(messageManager, conversations)),
+                "the two ways render different text");
+
+        long byIDNanos = Long.MAX_VALUE;
+        long byViewNanos = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            renderByID(messageManager, conversations);
+            byIDNanos = Math.min(byIDNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            renderByView(messageManager, conversations);
+            byViewNanos = Math.min(byViewNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("%d conversations of %d messages, best of %d rounds:%n", CONVERSATIONS,
+                2 * ROUNDS_OF_MESSAGES, rounds);
+        System.out.printf("by message ID (4 lookups per message): %.2f ms%n", byIDNanos / 1e6);
+        System.out.printf("by MessageView (1 lookup per message): %.2f ms (%.1fx faster)%n", byViewNanos / 1e6,
+                (double) byIDNanos / byViewNanos);
+    }
+
+    private static String renderByID(MessageManager messageManager, ArrayList<ArrayList<UUID>> conversations) {
+        StringBuilder text = new StringBuilder();
+        for (ArrayList<UUID> conversation : conversations) {
+            for (UUID messageID : conversation) {
+                if (messageManager.isSender(messageID)) {
+                    text.append("you sent to ").append(messageManager.getMessageReceiver(messageID));
+                } else {
+                    text.append(messageManager.getMessageSender(messageID)).append(" sent to you");
+                }
+                text.append(":\n").append(messageManager.getMessageContent(messageID)).append("\n           at ")
+                        .append(messageManager.getMessageTime(messageID)).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private static String renderByView(MessageManager messageManager, ArrayList<ArrayList<UUID>> conversations) {
+        StringBuilder text = new StringBuilder();
+        for (ArrayList<UUID> conversation : conversations) {
+            for (MessageManager.MessageView message : messageManager.getMessageViews(conversation)) {
+                if (message.isSender()) {
+                    text.append("you sent to ").append(message.getReceiver());
+                } else {
+                    text.append(message.getSender()).append(" sent to you");
+                }
+                text.append(":\n").append(message.getContent()).append("\n           at ")
+                        .append(message.getTime()).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package UseCase;
+
+import Entity.Event;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Compares EventManager.getAvailableSpeakers, which looks up each speaker's events on the day asked for, with the
+ * scan the first version of EventManager did: check every event for a time conflict, collect the speakers of the
+ * conflicting ones in a list, and search that list for every speaker.
+ *
+ * Both ways are checked to give the same speakers for every query. Run from the csc207_final folder. The optional
+ * arguments are the number of events (100,000 by default) and the number of queries (500 by default).
+ */
+public class SpeakerAvailabilityBenchmark {
+    private static final int SPEAKERS = 2000;
+    private static final int DAYS = 365;
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        Random random = new Random(207);
+
+        EventManager eventManager = new EventManager();
+        for (int i = 0; i < eventCount; i++) {
+            ArrayList<String> speaker = new ArrayList<>();
+            speaker.add("speaker" + random.nextInt(SPEAKERS));
+            eventManager.addEvent("event" + i, speaker, randomTime(random), random.nextInt(50), 1 + random.nextInt(3),
+                    100);
+        }
+        ArrayList<Event> events = eventManager.getEventList();
+
+        ArrayList<String> allSpeakers = new ArrayList<>();
+        for (int i = 0; i < SPEAKERS; i++) {
+            allSpeakers.add("speaker" + i);
+        }
+        for (int candidates : new int[] {500, 50}) {
+            LocalDateTime[] times = new LocalDateTime[queryCount];
+            int[] durations = new int[queryCount];
+            ArrayList<ArrayList<String>> speakerLists = new ArrayList<>();
+            for (int i = 0; i < queryCount; i++) {
+                times[i] = randomTime(random);
+                durations[i] = 1 + random.nextInt(3);
+                Collections.shuffle(allSpeakers, random);
+                speakerLists.add(new ArrayList<>(allSpeakers.subList(0, candidates)));
+            }
+
+            long indexStart = System.nanoTime();
+            ArrayList<ArrayList<String>> indexResults = new ArrayList<>();
+            for (int i = 0; i < queryCount; i++) {
+                indexResults.add(eventManager.getAvailableSpeakers(speakerLists.get(i), times[i], durations[i]));
+            }
+            long indexNanos = System.nanoTime() - indexStart;
+
+            long scanStart = System.nanoTime();
+            ArrayList<ArrayList<String>> scanResults = new ArrayList<>();
+            for (int i = 0; i < queryCount; i++) {
+                scanResults.add(scanAvailableSpeakers(events, speakerLists.get(i), times[i], durations[i]));
+            }
+            long scanNanos = System.nanoTime() - scanStart;
+
+            check(indexResults.equals(scanResults), "the two ways found different available speakers");
+            System.out.printf("%,d events, %d candidate speakers: scan %.3f ms, index %.3f ms per query%n",
+                    events.size(), candidates, scanNanos / 1e6 / queryCount, indexNanos / 1e6 / queryCount);
+        }
+    }
+
+    private static LocalDateTime randomTime(Random random) {
+        return FIRST_DAY.plusDays(random.nextInt(DAYS)).plusHours(9 + random.nextInt(8));
+    }
+
+    private static ArrayList<String> scanAvailableSpeakers(ArrayList<Event> events, ArrayList<String> speakerList,
+                                                           LocalDateTime time, int duration) {
+        ArrayList<String> unavailableList = new ArrayList<>();
+        for (Event e : events) {
+            if (hasTimeConflict(e, time, duration)) {
+                unavailableList.addAll(e.getSpeaker());
+            }
+        }
+        ArrayList<String> availableList = new ArrayList<>();
+        for (String s : speakerList) {
+            if (!unavailableList.contains(s)) {
+                availableList.add(s);
+            }
+        }
+        return availableList;
+    }
+
+    /**
+     * The time conflict check of the first version of EventManager, which only matches events on the same day.
+     */
+    private static boolean hasTimeConflict(Event e, LocalDateTime time, int duration) {
+        if (e.getTime().getYear() == time.getYear() &&
+                e.getTime().getMonthValue() == time.getMonthValue() &&
+                e.getTime().getDayOfMonth() == time.getDayOfMonth()) {
+            int startHour = time.getHour();
+            int endHour = time.getHour() + duration;
+            int eStartHour = e.getTime().getHour();
+            int eEndHour = e.getTime().getHour() + e.getDuration();
+            if (eStartHour == startHour) {
+                return true;
+            } else if (eStartHour < startHour && startHour < eEndHour) {
+                return true;
+            } else return startHour < eStartHour && eStartHour < endHour;
+        }
+        return false;
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}